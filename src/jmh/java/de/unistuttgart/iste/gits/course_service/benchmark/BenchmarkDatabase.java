@@ -0,0 +1,46 @@
+package de.unistuttgart.iste.gits.course_service.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * PostgreSQL test container with the schema of the service, created by the Flyway migrations in
+ * {@code src/main/resources/db/migration}, so that the benchmarks measure the same tables, indexes and triggers
+ * as the service uses.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+
+    private final PostgreSQLContainer<?> postgres;
+
+    private BenchmarkDatabase(final PostgreSQLContainer<?> postgres) {
+        this.postgres = postgres;
+    }
+
+    /**
+     * Starts a container and migrates its database to the latest version.
+     */
+    static BenchmarkDatabase start() {
+        final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+        postgres.start();
+
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .load()
+                .migrate();
+
+        return new BenchmarkDatabase(postgres);
+    }
+
+    Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+
+    @Override
+    public void close() {
+        postgres.stop();
+    }
+}
@@ -0,0 +1,100 @@
+package de.unistuttgart.iste.gits.course_service.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency distribution, including the p95, of the full-text search of the searchCourses query with
+ * the page query of the plain courses listing on a catalog of one million courses.
+ * <p>
+ * The titles and descriptions of the courses consist of random words of a vocabulary of {@value #WORDS} words,
+ * so that a search for a single word matches about {@value #COURSES} * 13 / {@value #WORDS} courses.
+ * The courses are inserted into a PostgreSQL test container with the schema of the service, their search vectors are
+ * computed by the triggers of {@code V5__course_search_vector.sql}. The courses have no chapters.
+ * The listing is ordered by the primary key, as the schema has no index on other columns to sort by.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CourseSearchBenchmark {
+
+    private static final int COURSES = 1_000_000;
+    private static final int WORDS = 5_000;
+    private static final int PAGE_SIZE = 20;
+
+    private static final String SEARCH = """
+            SELECT page.id, page.rank,
+                   ts_headline('english', page.title, page.query, 'HighlightAll=true'),
+                   ts_headline('english', page.description, page.query, 'MaxFragments=2, MaxWords=20, MinWords=5')
+            FROM (SELECT course.id, course.title, course.description, query,
+                         ts_rank(course.search_vector, query) AS rank
+                  FROM course, plainto_tsquery('english', ?) query
+                  WHERE course.search_vector @@ query
+                  ORDER BY rank DESC, course.id
+                  LIMIT ? OFFSET 0) page
+            ORDER BY page.rank DESC, page.id
+            """;
+    private static final String LIST = """
+            SELECT id, title, description, start_date, end_date, published FROM course ORDER BY id LIMIT ? OFFSET ?
+            """;
+
+    private BenchmarkDatabase database;
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = BenchmarkDatabase.start();
+        connection = database.openConnection();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE FUNCTION random_words(count integer) RETURNS text AS
+                    $$ SELECT string_agg('topic' || (1 + floor(random() * %d)::int), ' ') FROM generate_series(1, count) $$
+                    LANGUAGE sql VOLATILE
+                    """.formatted(WORDS));
+            statement.execute("""
+                    INSERT INTO course (id, title, description, start_date, end_date, published)
+                    SELECT gen_random_uuid(), random_words(3), random_words(10), now(), now(), true
+                    FROM generate_series(1, %d)
+                    """.formatted(COURSES));
+            statement.execute("VACUUM ANALYZE course");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        database.close();
+    }
+
+    @Benchmark
+    public int searchCourses() throws SQLException {
+        try (PreparedStatement search = connection.prepareStatement(SEARCH)) {
+            search.setString(1, "topic" + ThreadLocalRandom.current().nextInt(1, WORDS + 1));
+            search.setInt(2, PAGE_SIZE + 1);
+            return countRows(search);
+        }
+    }
+
+    @Benchmark
+    public int listCourses() throws SQLException {
+        try (PreparedStatement list = connection.prepareStatement(LIST)) {
+            list.setInt(1, PAGE_SIZE);
+            list.setInt(2, ThreadLocalRandom.current().nextInt(0, 50) * PAGE_SIZE);
+            return countRows(list);
+        }
+    }
+
+    private static int countRows(final PreparedStatement statement) throws SQLException {
+        int rows = 0;
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+}
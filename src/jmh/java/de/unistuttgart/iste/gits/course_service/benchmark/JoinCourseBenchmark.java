@@ -0,0 +1,129 @@
+package de.unistuttgart.iste.gits.course_service.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the joinCourse mutation under an enrollment surge: several threads let new users join a few courses
+ * concurrently, the throughput is the number of joins per second.
+ * <p>
+ * Compares the statements of the previous implementation (check that the course exists, select the membership
+ * as part of the merge of the entity with the assigned id, insert it) with the single
+ * {@code INSERT ... SELECT ... ON CONFLICT DO NOTHING} statement of the current implementation.
+ * Every join is executed in its own transaction against a PostgreSQL test container with the schema of the service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class JoinCourseBenchmark {
+
+    private static final int COURSES = 10;
+
+    private static final String COURSE_EXISTS = "SELECT count(*) FROM course WHERE id = ?";
+    private static final String SELECT_MEMBERSHIP = """
+            SELECT user_id, course_id, course_role FROM course_membership WHERE user_id = ? AND course_id = ?
+            """;
+    private static final String INSERT_MEMBERSHIP = """
+            INSERT INTO course_membership (user_id, course_id, course_role) VALUES (?, ?, 0)
+            """;
+    private static final String INSERT_IF_COURSE_EXISTS = """
+            INSERT INTO course_membership (user_id, course_id, course_role)
+            SELECT ?, c.id, CAST(0 AS smallint) FROM course c WHERE c.id = ?
+            ON CONFLICT (user_id, course_id) DO NOTHING
+            """;
+
+    private BenchmarkDatabase database;
+    private UUID[] courseIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = BenchmarkDatabase.start();
+
+        courseIds = new UUID[COURSES];
+        try (Connection connection = openConnection();
+             Statement statement = connection.createStatement()) {
+            for (int i = 0; i < COURSES; i++) {
+                courseIds[i] = UUID.randomUUID();
+                statement.execute("""
+                        INSERT INTO course (id, title, description, start_date, end_date, published)
+                        VALUES ('%s', 'Course', '', now(), now(), true)
+                        """.formatted(courseIds[i]));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    /**
+     * The connection of a benchmark thread, each join is committed on its own.
+     */
+    @State(Scope.Thread)
+    public static class ThreadConnection {
+
+        private Connection connection;
+
+        @Setup(Level.Trial)
+        public void open(final JoinCourseBenchmark benchmark) throws SQLException {
+            connection = benchmark.openConnection();
+            connection.setAutoCommit(false);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public void joinCourseSelectThenInsert(final ThreadConnection thread) throws SQLException {
+        final Connection connection = thread.connection;
+        final UUID courseId = randomCourseId();
+        final UUID userId = UUID.randomUUID();
+
+        try (PreparedStatement courseExists = connection.prepareStatement(COURSE_EXISTS);
+             PreparedStatement selectMembership = connection.prepareStatement(SELECT_MEMBERSHIP);
+             PreparedStatement insertMembership = connection.prepareStatement(INSERT_MEMBERSHIP)) {
+            courseExists.setObject(1, courseId);
+            courseExists.executeQuery().close();
+
+            selectMembership.setObject(1, userId);
+            selectMembership.setObject(2, courseId);
+            selectMembership.executeQuery().close();
+
+            insertMembership.setObject(1, userId);
+            insertMembership.setObject(2, courseId);
+            insertMembership.executeUpdate();
+        }
+        connection.commit();
+    }
+
+    @Benchmark
+    public int joinCourseInsertOnly(final ThreadConnection thread) throws SQLException {
+        final Connection connection = thread.connection;
+        final int inserted;
+
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_IF_COURSE_EXISTS)) {
+            insert.setObject(1, UUID.randomUUID());
+            insert.setObject(2, randomCourseId());
+            inserted = insert.executeUpdate();
+        }
+        connection.commit();
+        return inserted;
+    }
+
+    private UUID randomCourseId() {
+        return courseIds[ThreadLocalRandom.current().nextInt(COURSES)];
+    }
+
+    private Connection openConnection() throws SQLException {
+        return database.openConnection();
+    }
+}
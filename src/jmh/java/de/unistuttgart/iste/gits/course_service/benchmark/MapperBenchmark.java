@@ -0,0 +1,103 @@
+package de.unistuttgart.iste.gits.course_service.benchmark;
+
+import de.unistuttgart.iste.gits.course_service.persistence.entity.ChapterEntity;
+import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseEntity;
+import de.unistuttgart.iste.gits.course_service.persistence.mapper.ChapterMapper;
+import de.unistuttgart.iste.gits.course_service.persistence.mapper.ChapterMapperImpl;
+import de.unistuttgart.iste.gits.course_service.persistence.mapper.CourseMapper;
+import de.unistuttgart.iste.gits.course_service.persistence.mapper.CourseMapperImpl;
+import de.unistuttgart.iste.gits.generated.dto.Chapter;
+import de.unistuttgart.iste.gits.generated.dto.Course;
+import de.unistuttgart.iste.gits.generated.dto.YearDivision;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares the throughput of the generated mappers with the reflective {@link ModelMapper}
+ * that was used for the entity to DTO mapping before.
+ * <p>
+ * Each invocation maps one page of entities, as it is done for the elements of a
+ * {@code courses} or {@code chapters} query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MapperBenchmark {
+
+    @Param({"1", "100"})
+    private int pageSize;
+
+    // configured like the former ModelMapperConfiguration bean
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final CourseMapper courseMapper = new CourseMapperImpl();
+    private final ChapterMapper chapterMapper = new ChapterMapperImpl();
+
+    private List<CourseEntity> courses;
+    private List<ChapterEntity> chapters;
+
+    @Setup
+    public void setUp() {
+        final OffsetDateTime now = OffsetDateTime.now();
+        courses = IntStream.range(0, pageSize)
+                .mapToObj(i -> CourseEntity.builder()
+                        .id(UUID.randomUUID())
+                        .title("Course " + i)
+                        .description("Description of course " + i)
+                        .startDate(now)
+                        .endDate(now.plusMonths(6))
+                        .published(true)
+                        .startYear(2023)
+                        .yearDivision(YearDivision.FIRST_SEMESTER)
+                        .chapters(List.of())
+                        .build())
+                .toList();
+        chapters = IntStream.range(0, pageSize)
+                .mapToObj(i -> ChapterEntity.builder()
+                        .id(UUID.randomUUID())
+                        .title("Chapter " + i)
+                        .description("Description of chapter " + i)
+                        .number(i)
+                        .startDate(now)
+                        .endDate(now.plusWeeks(2))
+                        .suggestedStartDate(now)
+                        .suggestedEndDate(now.plusWeeks(1))
+                        .courseId(UUID.randomUUID())
+                        .build())
+                .toList();
+    }
+
+    @Benchmark
+    public void courseModelMapper(final Blackhole blackhole) {
+        for (final CourseEntity course : courses) {
+            blackhole.consume(modelMapper.map(course, Course.class));
+        }
+    }
+
+    @Benchmark
+    public void courseGeneratedMapper(final Blackhole blackhole) {
+        for (final CourseEntity course : courses) {
+            blackhole.consume(courseMapper.entityToDto(course));
+        }
+    }
+
+    @Benchmark
+    public void chapterModelMapper(final Blackhole blackhole) {
+        for (final ChapterEntity chapter : chapters) {
+            blackhole.consume(modelMapper.map(chapter, Chapter.class));
+        }
+    }
+
+    @Benchmark
+    public void chapterGeneratedMapper(final Blackhole blackhole) {
+        for (final ChapterEntity chapter : chapters) {
+            blackhole.consume(chapterMapper.entityToDto(chapter));
+        }
+    }
+}
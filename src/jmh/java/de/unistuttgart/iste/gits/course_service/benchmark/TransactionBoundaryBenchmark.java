@@ -0,0 +1,131 @@
+package de.unistuttgart.iste.gits.course_service.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the statements of the createCourse mutation (insert the course and the membership of the creator)
+ * executed as independent auto-commits, as it was done before the service methods were transactional,
+ * with the same statements executed in a single transaction.
+ * <p>
+ * Every commit requires a WAL flush, so besides the throughput, the number of commits and WAL syncs
+ * per operation are reported as the secondary results {@code commitsPerOp} and {@code walSyncsPerOp}.
+ * They are taken from {@code pg_stat_database} and {@code pg_stat_wal} of a PostgreSQL test container.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TransactionBoundaryBenchmark {
+
+    private static final String INSERT_COURSE = """
+            INSERT INTO course (id, title, description, start_date, end_date, published)
+            VALUES (?, 'Course', 'Description', ?, ?, false)
+            """;
+    // the role is stored as the ordinal of UserRoleInCourse, 2 is ADMINISTRATOR
+    private static final String INSERT_MEMBERSHIP = """
+            INSERT INTO course_membership (user_id, course_id, course_role) VALUES (?, ?, 2)
+            """;
+
+    private BenchmarkDatabase database;
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = BenchmarkDatabase.start();
+        connection = database.openConnection();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        database.close();
+    }
+
+    /**
+     * The commits and WAL syncs per operation of an iteration, reported as secondary results.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WalStatistics {
+
+        public double commitsPerOp;
+        public double walSyncsPerOp;
+
+        private long operations;
+        private long commitsBefore;
+        private long walSyncsBefore;
+
+        @Setup(Level.Iteration)
+        public void start(final TransactionBoundaryBenchmark benchmark) throws SQLException {
+            operations = 0;
+            commitsBefore = benchmark.commits();
+            walSyncsBefore = benchmark.walSyncs();
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop(final TransactionBoundaryBenchmark benchmark) throws SQLException {
+            benchmark.flushStatistics();
+            commitsPerOp = (double) (benchmark.commits() - commitsBefore) / operations;
+            walSyncsPerOp = (double) (benchmark.walSyncs() - walSyncsBefore) / operations;
+        }
+    }
+
+    @Benchmark
+    public void createCourseAutoCommit(final WalStatistics statistics) throws SQLException {
+        connection.setAutoCommit(true);
+        insertCourseWithMembership();
+        statistics.operations++;
+    }
+
+    @Benchmark
+    public void createCourseSingleTransaction(final WalStatistics statistics) throws SQLException {
+        connection.setAutoCommit(false);
+        insertCourseWithMembership();
+        connection.commit();
+        statistics.operations++;
+    }
+
+    private void insertCourseWithMembership() throws SQLException {
+        final UUID courseId = UUID.randomUUID();
+        final OffsetDateTime now = OffsetDateTime.now();
+        try (PreparedStatement insertCourse = connection.prepareStatement(INSERT_COURSE);
+             PreparedStatement insertMembership = connection.prepareStatement(INSERT_MEMBERSHIP)) {
+            insertCourse.setObject(1, courseId);
+            insertCourse.setObject(2, now);
+            insertCourse.setObject(3, now.plusMonths(6));
+            insertCourse.executeUpdate();
+
+            insertMembership.setObject(1, UUID.randomUUID());
+            insertMembership.setObject(2, courseId);
+            insertMembership.executeUpdate();
+        }
+    }
+
+    private long commits() throws SQLException {
+        return queryLong("SELECT xact_commit FROM pg_stat_database WHERE datname = current_database()");
+    }
+
+    private long walSyncs() throws SQLException {
+        return queryLong("SELECT wal_sync FROM pg_stat_wal");
+    }
+
+    /**
+     * Statistics are reported asynchronously by the backends, this reports the statistics of the own backend.
+     */
+    private void flushStatistics() throws SQLException {
+        queryLong("SELECT 0 FROM (SELECT pg_stat_force_next_flush()) flush");
+    }
+
+    private long queryLong(final String sql) throws SQLException {
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
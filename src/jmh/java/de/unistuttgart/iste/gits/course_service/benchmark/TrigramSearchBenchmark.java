@@ -0,0 +1,93 @@
+package de.unistuttgart.iste.gits.course_service.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency of a case-insensitive substring search on the titles of a catalog of one million courses,
+ * as issued for {@code StringFilter.contains}, with and without the trigram index of {@code V4__trigram_indexes.sql}.
+ * <p>
+ * The rows are seeded into the course table of a PostgreSQL test container with the schema of the service and copied
+ * into a table without any index.
+ * The searched substrings are random parts of the titles, as typed into a search box.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TrigramSearchBenchmark {
+
+    private static final int COURSES = 1_000_000;
+
+    private static final String SEARCH = """
+            SELECT id, title FROM %s WHERE lower(title) LIKE ? ORDER BY title LIMIT 20
+            """;
+
+    private BenchmarkDatabase database;
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = BenchmarkDatabase.start();
+        connection = database.openConnection();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    INSERT INTO course (id, title, description, start_date, end_date, published)
+                    SELECT gen_random_uuid(), 'Course ' || md5(i::text), 'Description ' || i, now(), now(), true
+                    FROM generate_series(1, %d) i
+                    """.formatted(COURSES));
+            statement.execute("CREATE TABLE course_unindexed AS SELECT * FROM course");
+            statement.execute("VACUUM ANALYZE");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        database.close();
+    }
+
+    @Benchmark
+    public int searchWithoutIndex() throws SQLException {
+        return search("course_unindexed");
+    }
+
+    @Benchmark
+    public int searchWithTrigramIndex() throws SQLException {
+        return search("course");
+    }
+
+    private int search(final String table) throws SQLException {
+        // a six character substring of the md5 part of a title, matched by about two titles
+        final String title = "course " + md5Hex(ThreadLocalRandom.current().nextInt(1, COURSES + 1));
+        final int start = ThreadLocalRandom.current().nextInt("course ".length(), title.length() - 6);
+
+        int rows = 0;
+        try (PreparedStatement search = connection.prepareStatement(SEARCH.formatted(table))) {
+            search.setString(1, "%" + title.substring(start, start + 6) + "%");
+            try (ResultSet resultSet = search.executeQuery()) {
+                while (resultSet.next()) {
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static String md5Hex(final int value) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("MD5")
+                    .digest(Integer.toString(value).getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
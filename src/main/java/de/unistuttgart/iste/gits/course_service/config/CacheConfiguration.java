@@ -0,0 +1,14 @@
+package de.unistuttgart.iste.gits.course_service.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the Caffeine cache manager of Spring Boot. The caches and their size and expiration
+ * are configured in the application.properties with {@code spring.cache.cache-names} and
+ * {@code spring.cache.caffeine.spec}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+}
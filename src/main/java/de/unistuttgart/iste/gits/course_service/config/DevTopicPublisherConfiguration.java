@@ -1,7 +1,7 @@
 package de.unistuttgart.iste.gits.course_service.config;
 
-import de.unistuttgart.iste.gits.common.dapr.MockTopicPublisher;
 import de.unistuttgart.iste.gits.common.dapr.TopicPublisher;
+import de.unistuttgart.iste.gits.course_service.service.CacheInvalidator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,7 +9,8 @@ import org.springframework.context.annotation.Profile;
 
 /**
  * This is a dev-config for the TopicPublisher. It is intended to be used for development only.
- * It will log all messages instead of sending them to the dapr topic.
+ * It will log all messages instead of sending them to the dapr topic and deliver the course change events
+ * to the {@link CacheInvalidator} of this instance, as the dapr subscription would do.
  * <p>
  * The purpose of this is to allow developers to work on the media-service without having to run the dapr runtime.
  * <p>
@@ -21,8 +22,10 @@ import org.springframework.context.annotation.Profile;
 public class DevTopicPublisherConfiguration {
 
     @Bean
-    public TopicPublisher getTopicPublisher() {
+    public TopicPublisher getTopicPublisher(final CacheInvalidator cacheInvalidator) {
         log.warn("TopicPublisher is mocked. This is intended for development use only.");
-        return new MockTopicPublisher();
+        final LoopbackTopicPublisher topicPublisher = new LoopbackTopicPublisher();
+        topicPublisher.subscribe(cacheInvalidator);
+        return topicPublisher;
     }
 }
@@ -0,0 +1,36 @@
+package de.unistuttgart.iste.gits.course_service.config;
+
+import de.unistuttgart.iste.gits.common.dapr.MockTopicPublisher;
+import de.unistuttgart.iste.gits.common.event.CrudOperation;
+import de.unistuttgart.iste.gits.course_service.service.CacheInvalidator;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-memory stand-in for the dapr pub/sub. Course change events are delivered directly to the subscribed
+ * {@link CacheInvalidator}s instead of being sent to the dapr topic.
+ * <p>
+ * Subscribing the invalidators of several service instances allows to test the invalidation across
+ * replicas without running the dapr runtime.
+ */
+public class LoopbackTopicPublisher extends MockTopicPublisher {
+
+    private final List<CacheInvalidator> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Subscribes a cache invalidator to the course change events published by this publisher.
+     *
+     * @param cacheInvalidator the cache invalidator to subscribe
+     */
+    public void subscribe(final CacheInvalidator cacheInvalidator) {
+        subscribers.add(cacheInvalidator);
+    }
+
+    @Override
+    public void notifyCourseChanges(final UUID courseId, final CrudOperation operation) {
+        super.notifyCourseChanges(courseId, operation);
+        subscribers.forEach(subscriber -> subscriber.courseChanged(courseId, operation));
+    }
+}
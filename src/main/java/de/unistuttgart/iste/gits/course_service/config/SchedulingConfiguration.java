@@ -0,0 +1,12 @@
+package de.unistuttgart.iste.gits.course_service.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables scheduled tasks, e.g. the relay of the change event outbox.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
@@ -0,0 +1,68 @@
+package de.unistuttgart.iste.gits.course_service.config;
+
+import de.unistuttgart.iste.gits.common.dapr.TopicPublisher;
+import de.unistuttgart.iste.gits.common.event.ChapterChangeEvent;
+import de.unistuttgart.iste.gits.common.event.CourseChangeEvent;
+import de.unistuttgart.iste.gits.common.event.CrudOperation;
+import de.unistuttgart.iste.gits.course_service.service.OutboxRelay;
+import io.dapr.client.DaprClient;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Publishes the change events to the dapr topics and waits until the sidecar has accepted them.
+ * <p>
+ * The {@link OutboxRelay} deletes an event once its publication returned, so a failed publication must be
+ * reported to the caller instead of being dropped in the background. Therefore, each method blocks on the
+ * result of the dapr client and throws if the sidecar rejects the event or does not answer within the timeout.
+ */
+@Slf4j
+public class SynchronousTopicPublisher extends TopicPublisher {
+
+    private static final String PUBSUB_NAME = "gits";
+    private static final String TOPIC_COURSE_CHANGES = "course-changes";
+    private static final String TOPIC_CHAPTER_CHANGES = "chapter-changes";
+
+    private static final Duration PUBLISH_TIMEOUT = Duration.ofSeconds(10);
+
+    private final DaprClient client;
+
+    public SynchronousTopicPublisher(final DaprClient client) {
+        super(client);
+        this.client = client;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws RuntimeException if the event could not be published
+     */
+    @Override
+    public void notifyCourseChanges(final UUID courseId, final CrudOperation operation) {
+        final CourseChangeEvent event = new CourseChangeEvent();
+        event.setCourseId(courseId);
+        event.setOperation(operation);
+        publishEvent(event, TOPIC_COURSE_CHANGES);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws RuntimeException if the event could not be published
+     */
+    @Override
+    public void notifyChapterChanges(final List<UUID> chapterIds, final CrudOperation operation) {
+        final ChapterChangeEvent event = new ChapterChangeEvent();
+        event.setChapterIds(chapterIds);
+        event.setOperation(operation);
+        publishEvent(event, TOPIC_CHAPTER_CHANGES);
+    }
+
+    private void publishEvent(final Object event, final String topic) {
+        log.debug("Publishing event to topic {}", topic);
+        client.publishEvent(PUBSUB_NAME, topic, event).block(PUBLISH_TIMEOUT);
+    }
+}
@@ -14,7 +14,7 @@ public class TopicPublisherConfiguration {
 
     @Bean
     public TopicPublisher getTopicPublisher() {
-        return new TopicPublisher(new DaprClientBuilder().build());
+        return new SynchronousTopicPublisher(new DaprClientBuilder().build());
     }
 
 }
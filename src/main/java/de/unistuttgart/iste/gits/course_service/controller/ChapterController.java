@@ -3,14 +3,21 @@ package de.unistuttgart.iste.gits.course_service.controller;
 import de.unistuttgart.iste.gits.common.user_handling.LoggedInUser;
 import de.unistuttgart.iste.gits.common.user_handling.UserCourseAccessValidator;
 import de.unistuttgart.iste.gits.course_service.service.ChapterService;
+import de.unistuttgart.iste.gits.course_service.service.ChapterService.ChapterQueryArguments;
+import de.unistuttgart.iste.gits.course_service.service.ChapterService.CourseChaptersKey;
 import de.unistuttgart.iste.gits.generated.dto.*;
+import graphql.schema.DataFetchingFieldSelectionSet;
 import lombok.extern.slf4j.Slf4j;
+import org.dataloader.DataLoader;
 import org.springframework.graphql.data.method.annotation.*;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 @Slf4j
@@ -18,8 +25,13 @@ public class ChapterController {
 
     private final ChapterService chapterService;
 
-    public ChapterController(final ChapterService chapterService) {
+    public ChapterController(final ChapterService chapterService, final BatchLoaderRegistry batchLoaderRegistry) {
         this.chapterService = chapterService;
+
+        // the chapters of all courses in one execution level are loaded together
+        batchLoaderRegistry.forTypePair(CourseChaptersKey.class, ChapterPayload.class)
+                .registerMappedBatchLoader((keys, environment) ->
+                        Mono.fromCallable(() -> chapterService.getChaptersOfCourses(keys)));
     }
 
 
@@ -33,38 +45,85 @@ public class ChapterController {
         return chapterService.createChapter(input);
     }
 
+    @MutationMapping
+    public List<Chapter> createChapters(@Argument("input") final List<CreateChapterInput> input,
+                                        @ContextValue final LoggedInUser currentUser) {
+        input.stream()
+                .map(CreateChapterInput::getCourseId)
+                .distinct()
+                .forEach(courseId -> UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser,
+                        LoggedInUser.UserRoleInCourse.ADMINISTRATOR,
+                        courseId));
+
+        return chapterService.createChapters(input);
+    }
+
+    @MutationMapping
+    public List<Chapter> updateChapters(@Argument("input") final List<UpdateChapterInput> input,
+                                        @ContextValue final LoggedInUser currentUser) {
+        chapterService.getCourseIdsForChapterIds(input.stream().map(UpdateChapterInput::getId).toList())
+                .forEach(courseId -> UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser,
+                        LoggedInUser.UserRoleInCourse.ADMINISTRATOR,
+                        courseId));
+
+        return chapterService.updateChapters(input);
+    }
+
     @MutationMapping
     public Chapter updateChapter(@Argument("input") final UpdateChapterInput input,
                                  @ContextValue final LoggedInUser currentUser) {
+        final UUID courseId = chapterService.getCourseIdForChapterId(input.getId());
         UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser,
                 LoggedInUser.UserRoleInCourse.ADMINISTRATOR,
-                chapterService.getCourseIdForChapterId(input.getId()));
+                courseId);
 
-        return chapterService.updateChapter(input);
+        return chapterService.updateChapter(input, courseId);
     }
 
     @MutationMapping
     public UUID deleteChapter(@Argument("id") final UUID id,
                               @ContextValue final LoggedInUser currentUser) {
+        final UUID courseId = chapterService.getCourseIdForChapterId(id);
         UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser,
                 LoggedInUser.UserRoleInCourse.ADMINISTRATOR,
-                chapterService.getCourseIdForChapterId(id));
+                courseId);
 
-        return chapterService.deleteChapter(id);
+        return chapterService.deleteChapter(id, courseId);
     }
 
     @SchemaMapping(typeName = "Course", field = "chapters")
-    public ChapterPayload chapters(final Course course,
-                                   @Argument("filter") @Nullable final ChapterFilter filter,
-                                   @Argument("sortBy") final List<String> sortBy,
-                                   @Argument("sortDirection") final List<SortDirection> sortDirection,
-                                   @Argument("pagination") @Nullable final Pagination pagination,
-                                   @ContextValue final LoggedInUser currentUser) {
+    public CompletableFuture<ChapterPayload> chapters(final Course course,
+                                                      @Argument("filter") @Nullable final ChapterFilter filter,
+                                                      @Argument("sortBy") final List<String> sortBy,
+                                                      @Argument("sortDirection") final List<SortDirection> sortDirection,
+                                                      @Argument("pagination") @Nullable final Pagination pagination,
+                                                      @Argument("totalCount") final TotalCountMode totalCount,
+                                                      @ContextValue final LoggedInUser currentUser,
+                                                      final DataFetchingFieldSelectionSet selectionSet,
+                                                      final DataLoader<CourseChaptersKey, ChapterPayload> chaptersLoader) {
+        UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser,
+                LoggedInUser.UserRoleInCourse.STUDENT,
+                course.getId());
+
+        return chaptersLoader.load(new CourseChaptersKey(course.getId(),
+                new ChapterQueryArguments(chapterService.normalizeFilter(filter), sortBy, sortDirection, pagination,
+                        totalCount, chapterService.getSelectedAttributes(selectionSet))));
+    }
+
+    @SchemaMapping(typeName = "Course", field = "chaptersByCursor")
+    public ChapterCursorPayload chaptersByCursor(final Course course,
+                                                 @Argument("filter") @Nullable final ChapterFilter filter,
+                                                 @Argument("sortBy") @Nullable final String sortBy,
+                                                 @Argument("sortDirection") final SortDirection sortDirection,
+                                                 @Argument("pagination") final CursorPagination pagination,
+                                                 @ContextValue final LoggedInUser currentUser,
+                                                 final DataFetchingFieldSelectionSet selectionSet) {
         UserCourseAccessValidator.validateUserHasAccessToCourse(currentUser,
                 LoggedInUser.UserRoleInCourse.STUDENT,
                 course.getId());
 
-        return chapterService.getChapters(course.getId(), filter, sortBy, sortDirection, pagination);
+        return chapterService.getChaptersOfCourseByCursor(course.getId(), filter, sortBy, sortDirection, pagination,
+                selectionSet);
     }
 
     @QueryMapping(name = "_internal_noauth_chaptersByIds")
@@ -72,8 +131,8 @@ public class ChapterController {
         return chapterService.getChaptersByIds(ids);
     }
 
-    @SchemaMapping(typeName = "Chapter", field = "course")
-    public Course course(final Chapter chapter) {
-        return chapterService.getCourseForChapterId(chapter.getId());
+    @BatchMapping(typeName = "Chapter", field = "course")
+    public List<Course> course(final List<Chapter> chapters) {
+        return chapterService.getCoursesForChapters(chapters);
     }
 }
@@ -5,6 +5,7 @@ import de.unistuttgart.iste.gits.common.user_handling.LoggedInUser;
 import de.unistuttgart.iste.gits.common.user_handling.UserCourseAccessValidator;
 import de.unistuttgart.iste.gits.course_service.service.CourseService;
 import de.unistuttgart.iste.gits.generated.dto.*;
+import graphql.schema.DataFetchingFieldSelectionSet;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.graphql.data.method.annotation.*;
 import org.springframework.lang.Nullable;
@@ -35,9 +36,28 @@ public class CourseController {
             @Argument(name = "filter") @Nullable final CourseFilter filter,
             @Argument(name = "sortBy") final List<String> sortBy,
             @Argument(name = "sortDirection") final List<SortDirection> sortDirection,
-            @Argument(name = "pagination") @Nullable final Pagination pagination
+            @Argument(name = "pagination") @Nullable final Pagination pagination,
+            @Argument(name = "totalCount") final TotalCountMode totalCount,
+            final DataFetchingFieldSelectionSet selectionSet
     ) {
-        return courseService.getCourses(filter, sortBy, sortDirection, pagination);
+        return courseService.getCourses(filter, sortBy, sortDirection, pagination, totalCount, selectionSet);
+    }
+
+    @QueryMapping
+    public CourseCursorPayload coursesByCursor(
+            @Argument(name = "filter") @Nullable final CourseFilter filter,
+            @Argument(name = "sortBy") @Nullable final String sortBy,
+            @Argument(name = "sortDirection") final SortDirection sortDirection,
+            @Argument(name = "pagination") final CursorPagination pagination,
+            final DataFetchingFieldSelectionSet selectionSet
+    ) {
+        return courseService.getCoursesByCursor(filter, sortBy, sortDirection, pagination, selectionSet);
+    }
+
+    @QueryMapping
+    public CourseSearchPayload searchCourses(@Argument(name = "query") final String query,
+                                             @Argument(name = "pagination") final Pagination pagination) {
+        return courseService.searchCourses(query, pagination);
     }
 
     @QueryMapping
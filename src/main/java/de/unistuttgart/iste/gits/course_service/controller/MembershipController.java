@@ -3,24 +3,40 @@ package de.unistuttgart.iste.gits.course_service.controller;
 import de.unistuttgart.iste.gits.common.user_handling.LoggedInUser;
 import de.unistuttgart.iste.gits.course_service.service.MembershipService;
 import de.unistuttgart.iste.gits.generated.dto.*;
-import lombok.RequiredArgsConstructor;
+import de.unistuttgart.iste.gits.course_service.service.MembershipService.CourseMembershipsKey;
+import de.unistuttgart.iste.gits.course_service.service.MembershipService.MembershipQueryArguments;
 import lombok.extern.slf4j.Slf4j;
+import org.dataloader.DataLoader;
 import org.springframework.graphql.data.method.annotation.*;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static de.unistuttgart.iste.gits.common.user_handling.LoggedInUser.UserRoleInCourse.ADMINISTRATOR;
 import static de.unistuttgart.iste.gits.common.user_handling.UserCourseAccessValidator.validateUserHasAccessToCourse;
 
 @Slf4j
 @Controller
-@RequiredArgsConstructor
 public class MembershipController {
 
     private final MembershipService membershipService;
 
+    public MembershipController(final MembershipService membershipService,
+                                final BatchLoaderRegistry batchLoaderRegistry) {
+        this.membershipService = membershipService;
+
+        // the memberships of all courses in one execution level are loaded together.
+        // The loader is registered by name, as the value type is generic; the name matches the controller parameter.
+        batchLoaderRegistry.<CourseMembershipsKey, List<CourseMembership>>forName("membershipsLoader")
+                .registerMappedBatchLoader((keys, environment) ->
+                        Mono.fromCallable(() -> membershipService.getMembershipsOfCourses(keys)));
+    }
+
     @QueryMapping(name = "_internal_noauth_courseMembershipsByUserId")
     public List<CourseMembership> courseMembershipsByUserIds(@Argument final UUID userId,
                                                              @Argument final Boolean availabilityFilter) {
@@ -30,11 +46,7 @@ public class MembershipController {
     @MutationMapping
     public CourseMembership joinCourse(@Argument final UUID courseId,
                              @ContextValue final LoggedInUser currentUser) {
-        return membershipService.createMembership(CourseMembershipInput.builder()
-                .setCourseId(courseId)
-                .setUserId(currentUser.getId())
-                .setRole(UserRoleInCourse.STUDENT)
-                .build());
+        return membershipService.joinCourse(currentUser.getId(), courseId);
     }
 
     @MutationMapping
@@ -51,6 +63,15 @@ public class MembershipController {
         return membershipService.createMembership(inputDto);
     }
 
+    @MutationMapping
+    public MembershipImportResult importMemberships(@Argument final UUID courseId,
+                                                    @Argument final List<MembershipImportInput> memberships,
+                                                    @ContextValue final LoggedInUser currentUser) {
+        validateUserHasAccessToCourse(currentUser, ADMINISTRATOR, courseId);
+
+        return membershipService.importMemberships(courseId, memberships);
+    }
+
     @MutationMapping
     public CourseMembership updateMembership(@Argument(name = "input") final CourseMembershipInput inputDto,
                                              @ContextValue final LoggedInUser currentUser) {
@@ -68,10 +89,15 @@ public class MembershipController {
     }
 
     @SchemaMapping(typeName = "Course", field = "memberships")
-    public List<CourseMembership> memberships(final Course course,
-                                              @ContextValue final LoggedInUser currentUser) {
+    public CompletableFuture<List<CourseMembership>> memberships(
+            final Course course,
+            @Argument("role") @Nullable final UserRoleInCourse role,
+            @Argument("pagination") @Nullable final Pagination pagination,
+            @ContextValue final LoggedInUser currentUser,
+            final DataLoader<CourseMembershipsKey, List<CourseMembership>> membershipsLoader) {
         validateUserHasAccessToCourse(currentUser, ADMINISTRATOR, course.getId());
 
-        return membershipService.getMembershipsOfCourse(course.getId());
+        return membershipsLoader.load(new CourseMembershipsKey(course.getId(),
+                new MembershipQueryArguments(role, pagination)));
     }
 }
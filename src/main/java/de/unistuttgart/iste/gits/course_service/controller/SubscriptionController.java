@@ -0,0 +1,42 @@
+package de.unistuttgart.iste.gits.course_service.controller;
+
+import de.unistuttgart.iste.gits.common.event.CourseChangeEvent;
+import de.unistuttgart.iste.gits.course_service.service.CacheInvalidator;
+import io.dapr.Topic;
+import io.dapr.client.domain.CloudEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST controller for the dapr subscriptions of the service.
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class SubscriptionController {
+
+    private final CacheInvalidator cacheInvalidator;
+
+    /**
+     * Receives the course change events of all replicas and evicts the changed courses from the local cache.
+     * Every replica receives every event, as each instance subscribes with its own consumer id.
+     *
+     * @param cloudEvent the course change event
+     */
+    @Topic(name = "course-changes", pubsubName = "gits")
+    @PostMapping(path = "/course-service/course-changes-pubsub")
+    public Mono<Void> onCourseChanged(@RequestBody final CloudEvent<CourseChangeEvent> cloudEvent) {
+        return Mono.fromRunnable(() -> {
+            final CourseChangeEvent event = cloudEvent.getData();
+            if (event == null || event.getCourseId() == null) {
+                log.warn("Received course change event without course id: {}", cloudEvent);
+                return;
+            }
+            cacheInvalidator.courseChanged(event.getCourseId(), event.getOperation());
+        });
+    }
+}
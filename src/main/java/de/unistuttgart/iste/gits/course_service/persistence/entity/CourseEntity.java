@@ -34,7 +34,11 @@ public class CourseEntity implements IWithId<UUID> {
     @Column(nullable = false)
     private boolean published;
 
-    @OneToMany(cascade = CascadeType.ALL, mappedBy = "courseId")
+    /**
+     * Chapters of the course. This collection is lazy and must not be accessed when mapping a course to a DTO,
+     * the chapters of a course are resolved by the Course.chapters schema mapping.
+     */
+    @OneToMany(cascade = CascadeType.ALL, mappedBy = "courseId", fetch = FetchType.LAZY)
     @OrderBy("number ASC")
     private List<ChapterEntity> chapters;
     
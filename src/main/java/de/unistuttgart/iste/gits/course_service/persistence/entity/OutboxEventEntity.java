@@ -0,0 +1,67 @@
+package de.unistuttgart.iste.gits.course_service.persistence.entity;
+
+import de.unistuttgart.iste.gits.common.event.CrudOperation;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A change event that has not been published yet. Events are written in the transaction of the mutation
+ * that caused them and deleted after they were published.
+ */
+@Entity(name = "OutboxEvent")
+@Table(name = "outbox_event")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEventEntity {
+
+    /**
+     * Taken from a sequence in blocks of {@code allocationSize} instead of an identity column, which would prevent
+     * JDBC batching of the inserts. The increment of the sequence must match the allocation size.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_id_seq")
+    @SequenceGenerator(name = "outbox_event_id_seq", sequenceName = "outbox_event_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Type type;
+
+    /**
+     * The id of the changed course or chapter.
+     */
+    @Column(nullable = false)
+    private UUID entityId;
+
+    /**
+     * Stored by name, as the order of the constants of {@link CrudOperation} is not under our control.
+     */
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private CrudOperation operation;
+
+    @Column(nullable = false)
+    private OffsetDateTime createdAt;
+
+    /**
+     * The number of failed attempts to publish the event.
+     */
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private OffsetDateTime nextAttemptAt;
+
+    public enum Type {
+        COURSE_CHANGE,
+        CHAPTER_CHANGE
+    }
+}
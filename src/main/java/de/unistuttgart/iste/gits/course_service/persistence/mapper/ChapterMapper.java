@@ -2,36 +2,100 @@ package de.unistuttgart.iste.gits.course_service.persistence.mapper;
 
 import de.unistuttgart.iste.gits.course_service.persistence.entity.ChapterEntity;
 import de.unistuttgart.iste.gits.generated.dto.*;
-import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
-import org.springframework.stereotype.Component;
+import graphql.schema.SelectedField;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
-import java.util.stream.Stream;
+import java.time.OffsetDateTime;
+import java.util.*;
 
-@Component
-@RequiredArgsConstructor
-public class ChapterMapper {
+@Mapper(config = MapperConfiguration.class)
+public abstract class ChapterMapper {
 
-    private final ModelMapper modelMapper;
+    /**
+     * Attributes of {@link ChapterEntity} that are stored in columns and can be selected individually.
+     * The names are the same as the names of the corresponding fields of the GraphQL chapter type.
+     */
+    private static final Set<String> COLUMN_ATTRIBUTES = Set.of(
+            "id", "title", "description", "number", "startDate", "endDate", "suggestedStartDate", "suggestedEndDate");
 
-    public Chapter entityToDto(ChapterEntity chapterEntity) {
-        return modelMapper.map(chapterEntity, Chapter.class);
-    }
+    // the course only contains the id, it is resolved by the Chapter.course batch mapping
+    @Mapping(target = "course", source = "courseId")
+    public abstract Chapter entityToDto(ChapterEntity chapterEntity);
 
-    public ChapterEntity dtoToEntity(CreateChapterInput chapterInput) {
-        ChapterEntity entity = modelMapper.map(chapterInput, ChapterEntity.class);
-        entity.setCourseId(chapterInput.getCourseId());
-        return entity;
-    }
+    @Mapping(target = "id", ignore = true)
+    public abstract ChapterEntity dtoToEntity(CreateChapterInput chapterInput);
 
-    public ChapterEntity dtoToEntity(UpdateChapterInput input) {
-        return modelMapper.map(input, ChapterEntity.class);
-    }
+    // the course id of a chapter cannot be changed, it is set by the service
+    @Mapping(target = "courseId", ignore = true)
+    public abstract ChapterEntity dtoToEntity(UpdateChapterInput input);
 
-    public ChapterPayload createChapterPayload(Stream<ChapterEntity> chapterEntities, PaginationInfo paginationInfo) {
+    public ChapterPayload createChapterPayload(List<Chapter> chapters, PaginationInfo paginationInfo) {
         return ChapterPayload.builder()
-                .setElements(chapterEntities.map(this::entityToDto).toList())
+                .setElements(chapters)
+                .setPagination(paginationInfo)
+                .build();
+    }
+
+    public ChapterCursorPayload createChapterCursorPayload(List<Chapter> chapters,
+                                                           CursorPaginationInfo paginationInfo) {
+        return ChapterCursorPayload.builder()
+                .setElements(chapters)
                 .setPagination(paginationInfo)
                 .build();
     }
+
+    /**
+     * Determines the entity attributes that have to be loaded to resolve the given selected fields of a chapter.
+     * The id and the course id are always contained, the course id is needed to group the chapters by course and
+     * to resolve the course of a chapter.
+     *
+     * @param selectedFields the selected fields of the GraphQL chapter type
+     * @return the names of the attributes to load
+     */
+    public Set<String> selectedAttributes(List<SelectedField> selectedFields) {
+        final Set<String> attributes = new HashSet<>();
+        attributes.add("id");
+        attributes.add("courseId");
+        for (final SelectedField selectedField : selectedFields) {
+            if (COLUMN_ATTRIBUTES.contains(selectedField.getName())) {
+                attributes.add(selectedField.getName());
+            }
+        }
+        return attributes;
+    }
+
+    /**
+     * Creates a chapter from a tuple of selected attributes. Attributes that were not selected remain null.
+     *
+     * @param tuple the tuple, each element has the name of the attribute as alias
+     * @return the chapter with the selected attributes
+     */
+    public Chapter tupleToDto(Tuple tuple) {
+        final Chapter chapter = new Chapter();
+        for (final TupleElement<?> element : tuple.getElements()) {
+            final Object value = tuple.get(element);
+            switch (element.getAlias()) {
+                case "id" -> chapter.setId((UUID) value);
+                case "title" -> chapter.setTitle((String) value);
+                case "description" -> chapter.setDescription((String) value);
+                case "number" -> chapter.setNumber((Integer) value);
+                case "startDate" -> chapter.setStartDate((OffsetDateTime) value);
+                case "endDate" -> chapter.setEndDate((OffsetDateTime) value);
+                case "suggestedStartDate" -> chapter.setSuggestedStartDate((OffsetDateTime) value);
+                case "suggestedEndDate" -> chapter.setSuggestedEndDate((OffsetDateTime) value);
+                case "courseId" -> chapter.setCourse(courseWithId((UUID) value));
+                default -> throw new IllegalArgumentException("Unknown chapter attribute " + element.getAlias());
+            }
+        }
+        return chapter;
+    }
+
+    protected Course courseWithId(final UUID courseId) {
+        final Course course = new Course();
+        course.setId(courseId);
+        return course;
+    }
 }
@@ -2,31 +2,39 @@ package de.unistuttgart.iste.gits.course_service.persistence.mapper;
 
 import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseEntity;
 import de.unistuttgart.iste.gits.generated.dto.*;
-import org.modelmapper.ModelMapper;
-import org.springframework.stereotype.Component;
+import graphql.schema.SelectedField;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
+import java.time.OffsetDateTime;
+import java.util.*;
 import java.util.stream.Stream;
 
-@Component
-public class CourseMapper {
+@Mapper(config = MapperConfiguration.class)
+public abstract class CourseMapper {
 
-    private final ModelMapper modelMapper;
+    /**
+     * Attributes of {@link CourseEntity} that are stored in columns and can be selected individually.
+     * The names are the same as the names of the corresponding fields of the GraphQL course type.
+     */
+    private static final Set<String> COLUMN_ATTRIBUTES = Set.of(
+            "id", "title", "description", "startDate", "endDate", "published", "startYear", "yearDivision");
 
-    public CourseMapper(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
-    }
-
-    public Course entityToDto(CourseEntity courseEntity) {
-        return modelMapper.map(courseEntity, Course.class);
-    }
+    // chapters, chaptersByCursor and memberships are resolved by their own schema mappings.
+    // Ignoring them also guarantees that the lazy chapter collection of the entity is never initialized.
+    @Mapping(target = "chapters", ignore = true)
+    @Mapping(target = "chaptersByCursor", ignore = true)
+    @Mapping(target = "memberships", ignore = true)
+    public abstract Course entityToDto(CourseEntity courseEntity);
 
-    public CourseEntity dtoToEntity(CreateCourseInput courseInputDTO) {
-        return modelMapper.map(courseInputDTO, CourseEntity.class);
-    }
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "chapters", ignore = true)
+    public abstract CourseEntity dtoToEntity(CreateCourseInput courseInputDTO);
 
-    public CourseEntity dtoToEntity(UpdateCourseInput input) {
-        return modelMapper.map(input, CourseEntity.class);
-    }
+    @Mapping(target = "chapters", ignore = true)
+    public abstract CourseEntity dtoToEntity(UpdateCourseInput input);
 
     public CoursePayload createPayload(Stream<CourseEntity> courseEntities,
                                        PaginationInfo paginationInfo) {
@@ -35,4 +43,75 @@ public class CourseMapper {
                 .setPagination(paginationInfo)
                 .build();
     }
+
+    public CoursePayload createPayload(List<Course> courses, PaginationInfo paginationInfo) {
+        return CoursePayload.builder()
+                .setElements(courses)
+                .setPagination(paginationInfo)
+                .build();
+    }
+
+    public CourseSearchPayload createSearchPayload(List<CourseSearchResult> results, PaginationInfo paginationInfo) {
+        return CourseSearchPayload.builder()
+                .setElements(results)
+                .setPagination(paginationInfo)
+                .build();
+    }
+
+    public CourseCursorPayload createCursorPayload(List<Course> courses, CursorPaginationInfo paginationInfo) {
+        return CourseCursorPayload.builder()
+                .setElements(courses)
+                .setPagination(paginationInfo)
+                .build();
+    }
+
+    /**
+     * Determines the entity attributes that have to be loaded to resolve the given selected fields of a course.
+     * The id is always contained, as it is needed to resolve the chapters and memberships of a course.
+     *
+     * @param selectedFields the selected fields of the GraphQL course type
+     * @return the names of the attributes to load
+     */
+    public Set<String> selectedAttributes(List<SelectedField> selectedFields) {
+        final Set<String> attributes = new HashSet<>();
+        attributes.add("id");
+        for (final SelectedField selectedField : selectedFields) {
+            if (COLUMN_ATTRIBUTES.contains(selectedField.getName())) {
+                attributes.add(selectedField.getName());
+            }
+        }
+        return attributes;
+    }
+
+    /**
+     * @return the names of all attributes that can be selected individually
+     */
+    public Set<String> allAttributes() {
+        return COLUMN_ATTRIBUTES;
+    }
+
+    /**
+     * Creates a course from a tuple of selected attributes. Attributes that were not selected remain null.
+     *
+     * @param tuple the tuple, each element has the name of the attribute as alias
+     * @return the course with the selected attributes
+     */
+    public Course tupleToDto(Tuple tuple) {
+        final Course course = new Course();
+        for (final TupleElement<?> element : tuple.getElements()) {
+            final Object value = tuple.get(element);
+            switch (element.getAlias()) {
+                case "id" -> course.setId((UUID) value);
+                case "title" -> course.setTitle((String) value);
+                case "description" -> course.setDescription((String) value);
+                case "startDate" -> course.setStartDate((OffsetDateTime) value);
+                case "endDate" -> course.setEndDate((OffsetDateTime) value);
+                case "published" -> course.setPublished((Boolean) value);
+                case "startYear" -> course.setStartYear((Integer) value);
+                case "yearDivision" -> course.setYearDivision((YearDivision) value);
+                default -> throw new IllegalArgumentException("Unknown course attribute " + element.getAlias());
+            }
+        }
+        return course;
+    }
 }
@@ -0,0 +1,16 @@
+package de.unistuttgart.iste.gits.course_service.persistence.mapper;
+
+import org.mapstruct.Builder;
+import org.mapstruct.MapperConfig;
+import org.mapstruct.MappingConstants;
+
+/**
+ * Shared configuration of the generated mappers.
+ * The mappers are generated at compile time, so mapping an entity does not involve any reflection.
+ * Builders are disabled so that the mapping code creates the target with its no-args constructor and
+ * calls the setters directly instead of allocating an additional builder per mapped object.
+ */
+@MapperConfig(componentModel = MappingConstants.ComponentModel.SPRING,
+        builder = @Builder(disableBuilder = true))
+public interface MapperConfiguration {
+}
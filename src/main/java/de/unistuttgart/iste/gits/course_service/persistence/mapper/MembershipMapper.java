@@ -1,27 +1,26 @@
 package de.unistuttgart.iste.gits.course_service.persistence.mapper;
 
 import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseMembershipEntity;
+import de.unistuttgart.iste.gits.generated.dto.Course;
 import de.unistuttgart.iste.gits.generated.dto.CourseMembership;
 import de.unistuttgart.iste.gits.generated.dto.CourseMembershipInput;
-import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
-import org.springframework.stereotype.Component;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
-@Component
-@RequiredArgsConstructor
-public class MembershipMapper {
+import java.util.UUID;
 
-    private final ModelMapper modelMapper;
+@Mapper(config = MapperConfiguration.class)
+public abstract class MembershipMapper {
 
+    // the course only contains the id, it is resolved by the CourseMembership.course batch mapping
+    @Mapping(target = "course", source = "courseId")
+    public abstract CourseMembership entityToDto(CourseMembershipEntity courseMembershipEntity);
 
-    public CourseMembership entityToDto(final CourseMembershipEntity courseMembershipEntity){
+    public abstract CourseMembershipEntity dtoToEntity(CourseMembershipInput membershipInput);
 
-        return modelMapper.map(courseMembershipEntity, CourseMembership.class);
-
-    }
-
-    public CourseMembershipEntity dtoToEntity(final CourseMembershipInput membershipInput){
-
-        return modelMapper.map(membershipInput, CourseMembershipEntity.class);
+    protected Course courseWithId(final UUID courseId) {
+        final Course course = new Course();
+        course.setId(courseId);
+        return course;
     }
 }
@@ -3,13 +3,45 @@ package de.unistuttgart.iste.gits.course_service.persistence.repository;
 import de.unistuttgart.iste.gits.common.persistence.GitsRepository;
 import de.unistuttgart.iste.gits.course_service.persistence.entity.ChapterEntity;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
  * Repository for {@link ChapterEntity}.
  */
-public interface ChapterRepository extends GitsRepository<ChapterEntity, UUID>, JpaSpecificationExecutor<ChapterEntity> {
+public interface ChapterRepository extends GitsRepository<ChapterEntity, UUID>, JpaSpecificationExecutor<ChapterEntity>,
+        ChapterRepositoryCustom {
 
+    /**
+     * Returns the ids of the courses the chapters with the given ids belong to, without loading the chapters.
+     * @param ids ids of the chapters
+     * @return the distinct course ids of the existing chapters
+     */
+    @Query("SELECT DISTINCT c.courseId FROM Chapter c WHERE c.id IN :ids")
+    List<UUID> findCourseIdsOfChapters(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Returns the id of the course the chapter with the given id belongs to, without loading the chapter.
+     * @param id id of the chapter
+     * @return the course id, empty if the chapter does not exist
+     */
+    @Query("SELECT c.courseId FROM Chapter c WHERE c.id = :id")
+    Optional<UUID> findCourseIdOfChapter(@Param("id") UUID id);
+
+    /**
+     * Deletes the chapter with the given id with a single statement, without loading it.
+     * @param id       id of the chapter
+     * @param courseId id of the course the chapter has to belong to
+     * @return the number of deleted chapters, 0 if no chapter with the id exists in the course
+     */
+    @Modifying
+    @Query("DELETE FROM Chapter c WHERE c.id = :id AND c.courseId = :courseId")
+    int deleteByIdAndCourseId(@Param("id") UUID id, @Param("courseId") UUID courseId);
 
 }
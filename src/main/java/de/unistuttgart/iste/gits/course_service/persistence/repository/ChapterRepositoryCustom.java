@@ -0,0 +1,62 @@
+package de.unistuttgart.iste.gits.course_service.persistence.repository;
+
+import de.unistuttgart.iste.gits.course_service.persistence.entity.ChapterEntity;
+import de.unistuttgart.iste.gits.generated.dto.ChapterFilter;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
+
+import java.util.*;
+
+/**
+ * Custom queries of the {@link ChapterRepository} that cannot be expressed as derived queries or specifications.
+ */
+public interface ChapterRepositoryCustom {
+
+    /**
+     * Loads one page of chapters for each of the given courses in a single query.
+     * The chapters of each course matching the filter are numbered with
+     * {@code row_number() over (partition by course_id ...)} and only the rows within the requested window are
+     * returned.
+     *
+     * @param courseIds the ids of the courses to load the chapters for
+     * @param filter    optional filter the chapters must match
+     * @param sort      the sort order of the chapters within each course
+     * @param offset    the number of chapters to skip in each course
+     * @param limit     the maximum number of chapters to return per course
+     * @return the chapters of the page, ordered by course id and then by the given sort order
+     */
+    List<ChapterEntity> findPageOfChaptersPerCourse(Collection<UUID> courseIds,
+                                                    @Nullable ChapterFilter filter,
+                                                    Sort sort,
+                                                    long offset,
+                                                    int limit);
+
+    /**
+     * Counts the chapters of each of the given courses that match the filter with a single grouped query.
+     *
+     * @param courseIds the ids of the courses to count the chapters for
+     * @param filter    optional filter the chapters must match
+     * @return the number of matching chapters by course id. Courses without matching chapters are not contained in
+     * the map.
+     */
+    Map<UUID, Long> countChaptersPerCourse(Collection<UUID> courseIds, @Nullable ChapterFilter filter);
+
+    /**
+     * Deletes all chapters of the given course with a single {@code DELETE ... RETURNING} statement,
+     * without loading them.
+     *
+     * @param courseId the id of the course to delete the chapters of
+     * @return the ids of the deleted chapters
+     */
+    List<UUID> deleteAllOfCourseReturningIds(UUID courseId);
+
+    /**
+     * Overwrites all attributes of a chapter with a single {@code UPDATE ... RETURNING} statement,
+     * without loading the chapter first. The course of a chapter cannot be changed, it is only used to make
+     * sure that the chapter still belongs to the course the update was authorized for.
+     *
+     * @param chapter the new state of the chapter, identified by its id and course id
+     * @return the updated chapter as stored in the database, empty if no chapter with the id exists in the course
+     */
+    Optional<ChapterEntity> updateReturning(ChapterEntity chapter);
+}
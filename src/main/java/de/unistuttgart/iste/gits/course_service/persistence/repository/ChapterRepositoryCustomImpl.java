@@ -0,0 +1,148 @@
+package de.unistuttgart.iste.gits.course_service.persistence.repository;
+
+import de.unistuttgart.iste.gits.course_service.persistence.entity.ChapterEntity;
+import de.unistuttgart.iste.gits.course_service.persistence.specification.FilterCondition;
+import de.unistuttgart.iste.gits.course_service.persistence.specification.FilterConditions;
+import de.unistuttgart.iste.gits.generated.dto.ChapterFilter;
+import jakarta.persistence.*;
+import org.hibernate.Session;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of {@link ChapterRepositoryCustom}.
+ */
+public class ChapterRepositoryCustomImpl implements ChapterRepositoryCustom {
+
+    /**
+     * Maps the sortable properties of {@link ChapterEntity} to their column names.
+     * Only these properties may be used in native queries, which also prevents SQL injection via the sort fields
+     * and the attributes of filters.
+     */
+    private static final Map<String, String> COLUMNS_BY_PROPERTY = Map.of(
+            "id", "id",
+            "title", "title",
+            "description", "description",
+            "number", "number",
+            "startDate", "start_date",
+            "endDate", "end_date",
+            "suggestedStartDate", "suggested_start_date",
+            "suggestedEndDate", "suggested_end_date",
+            "courseId", "course_id");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ChapterEntity> findPageOfChaptersPerCourse(final Collection<UUID> courseIds,
+                                                           @Nullable final ChapterFilter filter,
+                                                           final Sort sort,
+                                                           final long offset,
+                                                           final int limit) {
+        if (courseIds.isEmpty()) {
+            return List.of();
+        }
+
+        // the filter is compiled with the column names, its parameters are followed by the bounds of the window
+        final FilterCondition condition = FilterConditions.chapterFilter(courseIds, filter,
+                ChapterRepositoryCustomImpl::toColumn);
+        final int offsetParameter = condition.parameters().size() + 1;
+        final String sql = """
+                SELECT chapter.* FROM chapter
+                JOIN (SELECT id, row_number() OVER (PARTITION BY course_id ORDER BY %s) AS position
+                      FROM chapter
+                      WHERE %s) ranked ON ranked.id = chapter.id
+                WHERE ranked.position > ?%d AND ranked.position <= ?%d
+                ORDER BY chapter.course_id, ranked.position
+                """.formatted(toOrderByClause(sort), condition.condition(), offsetParameter, offsetParameter + 1);
+
+        final Query query = entityManager.createNativeQuery(sql, ChapterEntity.class);
+        setParameters(query, condition);
+        return query
+                .setParameter(offsetParameter, offset)
+                .setParameter(offsetParameter + 1, offset + limit)
+                .getResultList();
+    }
+
+    @Override
+    public Map<UUID, Long> countChaptersPerCourse(final Collection<UUID> courseIds,
+                                                  @Nullable final ChapterFilter filter) {
+        if (courseIds.isEmpty()) {
+            return Map.of();
+        }
+
+        final FilterCondition condition = FilterConditions.chapterFilter(courseIds, filter);
+        final TypedQuery<Tuple> query = entityManager.createQuery("""
+                SELECT %1$s.courseId, COUNT(%1$s) FROM Chapter %1$s
+                WHERE %2$s
+                GROUP BY %1$s.courseId
+                """.formatted(FilterCondition.ALIAS, condition.condition()), Tuple.class);
+        setParameters(query, condition);
+        return query
+                .getResultStream()
+                .collect(Collectors.toMap(
+                        tuple -> tuple.get(0, UUID.class),
+                        tuple -> tuple.get(1, Long.class)));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<UUID> deleteAllOfCourseReturningIds(final UUID courseId) {
+        // executed as query instead of update, so that the returned ids can be read
+        return entityManager.createNativeQuery("DELETE FROM chapter WHERE course_id = :courseId RETURNING id", UUID.class)
+                .setParameter("courseId", courseId)
+                .getResultList();
+    }
+
+    @Override
+    public Optional<ChapterEntity> updateReturning(final ChapterEntity chapter) {
+        return entityManager.unwrap(Session.class).createNativeQuery("""
+                        UPDATE chapter
+                        SET title = :title, description = :description, number = :number,
+                            start_date = :startDate, end_date = :endDate,
+                            suggested_start_date = :suggestedStartDate, suggested_end_date = :suggestedEndDate
+                        WHERE id = :id AND course_id = :courseId
+                        RETURNING *
+                        """, ChapterEntity.class)
+                .setParameter("title", chapter.getTitle())
+                .setParameter("description", chapter.getDescription())
+                .setParameter("number", chapter.getNumber())
+                .setParameter("startDate", chapter.getStartDate(), OffsetDateTime.class)
+                .setParameter("endDate", chapter.getEndDate(), OffsetDateTime.class)
+                // typed, so that null values are bound as timestamps
+                .setParameter("suggestedStartDate", chapter.getSuggestedStartDate(), OffsetDateTime.class)
+                .setParameter("suggestedEndDate", chapter.getSuggestedEndDate(), OffsetDateTime.class)
+                .setParameter("id", chapter.getId())
+                .setParameter("courseId", chapter.getCourseId())
+                .uniqueResultOptional();
+    }
+
+    private static void setParameters(final Query query, final FilterCondition condition) {
+        for (int i = 0; i < condition.parameters().size(); i++) {
+            query.setParameter(i + 1, condition.parameters().get(i));
+        }
+    }
+
+    private static String toColumn(final String property) {
+        final String column = COLUMNS_BY_PROPERTY.get(property);
+        if (column == null) {
+            throw new IllegalArgumentException("No property '" + property + "' found for type 'Chapter'");
+        }
+        return column;
+    }
+
+    private static String toOrderByClause(final Sort sort) {
+        final List<String> orders = new ArrayList<>();
+        for (final Sort.Order order : sort) {
+            orders.add(toColumn(order.getProperty()) + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        // the id makes the order of the rows deterministic
+        orders.add("id ASC");
+        return String.join(", ", orders);
+    }
+}
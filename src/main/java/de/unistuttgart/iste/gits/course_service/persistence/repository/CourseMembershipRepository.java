@@ -2,9 +2,15 @@ package de.unistuttgart.iste.gits.course_service.persistence.repository;
 
 import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseMembershipEntity;
 import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseMembershipPk;
+import de.unistuttgart.iste.gits.generated.dto.UserRoleInCourse;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -12,7 +18,8 @@ import java.util.UUID;
  * Repository for {@link CourseMembershipEntity}
  */
 @Repository
-public interface CourseMembershipRepository extends JpaRepository<CourseMembershipEntity, CourseMembershipPk> {
+public interface CourseMembershipRepository extends JpaRepository<CourseMembershipEntity, CourseMembershipPk>,
+        CourseMembershipRepositoryCustom {
 
     /**
      * Finds all course memberships for the specified user.
@@ -29,4 +36,82 @@ public interface CourseMembershipRepository extends JpaRepository<CourseMembersh
      * @return List of CourseMembershipEntities for the course with the given id.
      */
     List<CourseMembershipEntity> findCourseMembershipEntitiesByCourseId(UUID courseId);
+
+    /**
+     * Finds all course memberships of the courses with the specified ids.
+     *
+     * @param courseIds IDs of the courses to find the memberships for.
+     * @return List of CourseMembershipEntities of the courses, ordered by course id and user id.
+     */
+    List<CourseMembershipEntity> findByCourseIdInOrderByCourseIdAscUserIdAsc(Collection<UUID> courseIds);
+
+    /**
+     * Finds all course memberships with the specified role of the courses with the specified ids.
+     *
+     * @param courseIds IDs of the courses to find the memberships for.
+     * @param role      the role of the memberships to find.
+     * @return List of CourseMembershipEntities of the courses, ordered by course id and user id.
+     */
+    List<CourseMembershipEntity> findByCourseIdInAndRoleOrderByCourseIdAscUserIdAsc(Collection<UUID> courseIds,
+                                                                                   UserRoleInCourse role);
+
+    /**
+     * Creates a membership with a single statement if the course exists and the user is not a member of it yet,
+     * without loading the course or the membership.
+     *
+     * @param userId   ID of the user.
+     * @param courseId ID of the course.
+     * @param role     ordinal of the role of the membership, the role is stored by its ordinal.
+     * @return 1 if the membership was created, 0 if the course does not exist or the user is already a member.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO course_membership (user_id, course_id, course_role)
+            SELECT :userId, c.id, CAST(:role AS smallint) FROM course c WHERE c.id = :courseId
+            ON CONFLICT (user_id, course_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfCourseExists(@Param("userId") UUID userId, @Param("courseId") UUID courseId, @Param("role") int role);
+
+    /**
+     * Deletes all course memberships of the course with the specified id with a single statement,
+     * without loading them.
+     *
+     * @param courseId ID of the course to delete the memberships of.
+     * @return the number of deleted memberships.
+     */
+    @Modifying
+    @Query("DELETE FROM CourseMembership m WHERE m.courseId = :courseId")
+    int deleteAllByCourseIdInBulk(@Param("courseId") UUID courseId);
+
+    /**
+     * Finds all course memberships of the specified user whose course is available at the given time.
+     * A course is available if it is published, the start date is before and the end date is after the given time.
+     *
+     * @param userId ID of the user to find their courses for.
+     * @param now    the time to check the availability for.
+     * @return List of CourseMembershipEntities of the user in available courses.
+     */
+    @Query("""
+            SELECT m FROM CourseMembership m JOIN Course c ON c.id = m.courseId
+            WHERE m.userId = :userId
+              AND c.published = true AND c.startDate < :now AND c.endDate > :now
+            """)
+    List<CourseMembershipEntity> findAvailableByUserId(@Param("userId") UUID userId,
+                                                       @Param("now") OffsetDateTime now);
+
+    /**
+     * Finds all course memberships of the specified user whose course is not available at the given time.
+     *
+     * @param userId ID of the user to find their courses for.
+     * @param now    the time to check the availability for.
+     * @return List of CourseMembershipEntities of the user in unavailable courses.
+     * @see #findAvailableByUserId(UUID, OffsetDateTime)
+     */
+    @Query("""
+            SELECT m FROM CourseMembership m JOIN Course c ON c.id = m.courseId
+            WHERE m.userId = :userId
+              AND (c.published = false OR c.startDate >= :now OR c.endDate <= :now)
+            """)
+    List<CourseMembershipEntity> findUnavailableByUserId(@Param("userId") UUID userId,
+                                                         @Param("now") OffsetDateTime now);
 }
@@ -0,0 +1,52 @@
+package de.unistuttgart.iste.gits.course_service.persistence.repository;
+
+import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseMembershipEntity;
+import de.unistuttgart.iste.gits.generated.dto.UserRoleInCourse;
+import org.springframework.lang.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Custom queries of the {@link CourseMembershipRepository} that cannot be expressed as derived queries.
+ */
+public interface CourseMembershipRepositoryCustom {
+
+    /**
+     * Loads one page of memberships for each of the given courses in a single query.
+     * The memberships of each course are ordered by user id and numbered with
+     * {@code row_number() over (partition by course_id ...)}, only the rows within the requested window are returned.
+     *
+     * @param courseIds the ids of the courses to load the memberships for
+     * @param role      if not null, only memberships with this role are loaded
+     * @param offset    the number of memberships to skip in each course
+     * @param limit     the maximum number of memberships to return per course
+     * @return the memberships of the page, ordered by course id and user id
+     */
+    List<CourseMembershipEntity> findPageOfMembershipsPerCourse(Collection<UUID> courseIds,
+                                                                @Nullable UserRoleInCourse role,
+                                                                long offset,
+                                                                int limit);
+
+    /**
+     * Creates the memberships of the given users in the course with a single {@code INSERT ... ON CONFLICT} statement.
+     * If a user is already a member of the course, the role of the membership is updated instead.
+     * The user ids must be distinct.
+     *
+     * @param courseId the id of the course, which must exist
+     * @param userIds  the ids of the users
+     * @param roles    the roles of the users, in the order of the user ids
+     * @return the number of created and updated memberships, memberships that already had the role are not counted
+     */
+    UpsertResult upsertMemberships(UUID courseId, List<UUID> userIds, List<UserRoleInCourse> roles);
+
+    /**
+     * Result of {@link #upsertMemberships(UUID, List, List)}.
+     *
+     * @param created the number of created memberships
+     * @param updated the number of memberships whose role was changed
+     */
+    record UpsertResult(int created, int updated) {
+    }
+}
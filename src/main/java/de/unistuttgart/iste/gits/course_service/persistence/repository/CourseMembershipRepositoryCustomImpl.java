@@ -0,0 +1,97 @@
+package de.unistuttgart.iste.gits.course_service.persistence.repository;
+
+import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseMembershipEntity;
+import de.unistuttgart.iste.gits.generated.dto.UserRoleInCourse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.Session;
+import org.springframework.lang.Nullable;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Implementation of {@link CourseMembershipRepositoryCustom}.
+ */
+public class CourseMembershipRepositoryCustomImpl implements CourseMembershipRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<CourseMembershipEntity> findPageOfMembershipsPerCourse(final Collection<UUID> courseIds,
+                                                                       @Nullable final UserRoleInCourse role,
+                                                                       final long offset,
+                                                                       final int limit) {
+        if (courseIds.isEmpty()) {
+            return List.of();
+        }
+
+        final String sql = """
+                SELECT user_id, course_id, course_role FROM
+                    (SELECT *, row_number() OVER (PARTITION BY course_id ORDER BY user_id) AS position
+                     FROM course_membership
+                     WHERE course_id IN (:courseIds) %s) ranked
+                WHERE position > :offset AND position <= :end
+                ORDER BY course_id, position
+                """.formatted(role == null ? "" : "AND course_role = :role");
+
+        final Query query = entityManager.createNativeQuery(sql, CourseMembershipEntity.class)
+                .setParameter("courseIds", courseIds)
+                .setParameter("offset", offset)
+                .setParameter("end", offset + limit);
+        if (role != null) {
+            // the role is stored by its ordinal
+            query.setParameter("role", role.ordinal());
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public UpsertResult upsertMemberships(final UUID courseId,
+                                          final List<UUID> userIds,
+                                          final List<UserRoleInCourse> roles) {
+        if (userIds.isEmpty()) {
+            return new UpsertResult(0, 0);
+        }
+
+        // the rows are passed as two arrays, so the statement is the same for every batch size;
+        // xmax is 0 for inserted rows, memberships that already have the role are not updated and not returned
+        final String sql = """
+                INSERT INTO course_membership (user_id, course_id, course_role)
+                SELECT imported.user_id, ?, imported.course_role
+                FROM unnest(CAST(? AS uuid[]), CAST(? AS smallint[])) AS imported(user_id, course_role)
+                ON CONFLICT (user_id, course_id) DO UPDATE SET course_role = EXCLUDED.course_role
+                    WHERE course_membership.course_role <> EXCLUDED.course_role
+                RETURNING xmax = 0
+                """;
+
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (final PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setObject(1, courseId);
+                statement.setArray(2, connection.createArrayOf("uuid", userIds.toArray()));
+                // the role is stored by its ordinal
+                statement.setArray(3, connection.createArrayOf("int2",
+                        roles.stream().map(role -> (short) role.ordinal()).toArray()));
+
+                int created = 0;
+                int updated = 0;
+                try (final ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        if (resultSet.getBoolean(1)) {
+                            created++;
+                        } else {
+                            updated++;
+                        }
+                    }
+                }
+                return new UpsertResult(created, updated);
+            }
+        });
+    }
+}
@@ -4,8 +4,13 @@ import de.unistuttgart.iste.gits.common.persistence.GitsRepository;
 import de.unistuttgart.iste.gits.course_service.persistence.entity.ChapterEntity;
 import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseEntity;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -13,7 +18,8 @@ import java.util.UUID;
  * Repository for {@link CourseEntity}.
  */
 @Repository
-public interface CourseRepository extends GitsRepository<CourseEntity, UUID>, JpaSpecificationExecutor<CourseEntity> {
+public interface CourseRepository extends GitsRepository<CourseEntity, UUID>, JpaSpecificationExecutor<CourseEntity>,
+        CourseRepositoryCustom {
 
     /**
      * retrieves a course by one of its Chapters
@@ -22,4 +28,31 @@ public interface CourseRepository extends GitsRepository<CourseEntity, UUID>, Jp
      */
     Optional<CourseEntity> findCourseEntityByChaptersContaining(ChapterEntity chapterEntity);
 
+    /**
+     * Returns which of the given ids are ids of existing courses, without loading the courses.
+     * @param ids ids to check
+     * @return the ids of the existing courses
+     */
+    @Query("SELECT c.id FROM Course c WHERE c.id IN :ids")
+    List<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Deletes the course with the given id with a single statement, without loading it.
+     * Chapters and memberships of the course are not deleted.
+     * @param id id of the course
+     * @return the number of deleted courses, 0 if the course does not exist
+     */
+    @Modifying
+    @Query("DELETE FROM Course c WHERE c.id = :id")
+    int deleteCourseById(@Param("id") UUID id);
+
+    /**
+     * Estimates the number of courses from the table statistics of the database, without counting them.
+     * The estimate is updated by VACUUM and ANALYZE, so it may be outdated.
+     * @return the estimated number of courses, negative if the table has never been analyzed
+     */
+    @Query(value = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = CAST('course' AS regclass)",
+            nativeQuery = true)
+    long estimateCount();
+
 }
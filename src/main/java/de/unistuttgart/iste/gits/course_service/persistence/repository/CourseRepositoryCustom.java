@@ -0,0 +1,33 @@
+package de.unistuttgart.iste.gits.course_service.persistence.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Custom queries of the {@link CourseRepository} that cannot be expressed as derived queries or specifications.
+ */
+public interface CourseRepositoryCustom {
+
+    /**
+     * Searches the courses with the full-text search vector of {@code V5__course_search_vector.sql}, which contains
+     * the title, the description and the chapter titles of a course. The results are ordered by their
+     * {@code ts_rank}, the highlights are only computed for the returned page.
+     *
+     * @param query  the search terms, as typed by a user
+     * @param offset the number of results to skip
+     * @param limit  the maximum number of results to return
+     * @return the results of the page, best results first
+     */
+    List<CourseSearchHit> search(String query, long offset, int limit);
+
+    /**
+     * A result of {@link #search(String, long, int)}.
+     *
+     * @param courseId           the id of the found course
+     * @param rank               the rank of the course for the query, higher is better
+     * @param titleHighlight     the title of the course with the matching words enclosed in {@code <b>} tags
+     * @param descriptionSnippet fragments of the description around the matching words, also highlighted
+     */
+    record CourseSearchHit(UUID courseId, double rank, String titleHighlight, String descriptionSnippet) {
+    }
+}
@@ -0,0 +1,45 @@
+package de.unistuttgart.iste.gits.course_service.persistence.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Implementation of {@link CourseRepositoryCustom}.
+ */
+public class CourseRepositoryCustomImpl implements CourseRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<CourseSearchHit> search(final String query, final long offset, final int limit) {
+        // ts_headline parses the whole text, so it is only applied to the page, after the ranked results are limited
+        final List<Object[]> rows = entityManager.createNativeQuery("""
+                        SELECT page.id, page.rank,
+                               ts_headline('english', page.title, page.query, 'HighlightAll=true'),
+                               ts_headline('english', page.description, page.query, 'MaxFragments=2, MaxWords=20, MinWords=5')
+                        FROM (SELECT course.id, course.title, course.description, query,
+                                     ts_rank(course.search_vector, query) AS rank
+                              FROM course, plainto_tsquery('english', :query) query
+                              WHERE course.search_vector @@ query
+                              ORDER BY rank DESC, course.id
+                              LIMIT :limit OFFSET :offset) page
+                        ORDER BY page.rank DESC, page.id
+                        """)
+                .setParameter("query", query)
+                .setParameter("limit", limit)
+                .setParameter("offset", offset)
+                .getResultList();
+
+        return rows.stream()
+                .map(row -> new CourseSearchHit((UUID) row[0],
+                        ((Number) row[1]).doubleValue(),
+                        (String) row[2],
+                        (String) row[3]))
+                .toList();
+    }
+}
@@ -0,0 +1,48 @@
+package de.unistuttgart.iste.gits.course_service.persistence.repository;
+
+import de.unistuttgart.iste.gits.course_service.persistence.entity.OutboxEventEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Repository for {@link OutboxEventEntity}
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, Long> {
+
+    /**
+     * Finds the events that are due for publishing, in the order they were written, and locks them.
+     * Events locked by the relay of another replica are skipped, so every event is published by one replica only.
+     *
+     * @param now           the current time
+     * @param createdBefore only events created at or before this time are returned
+     * @param limit         the maximum number of events to return
+     * @return the events whose next attempt is due
+     */
+    @Query(value = """
+            SELECT * FROM outbox_event
+            WHERE next_attempt_at <= :now
+              AND created_at <= :createdBefore
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxEventEntity> findDueForUpdate(@Param("now") OffsetDateTime now,
+                                             @Param("createdBefore") OffsetDateTime createdBefore,
+                                             @Param("limit") int limit);
+
+    /**
+     * Returns the creation time of the oldest event that has not been published yet.
+     *
+     * @return the creation time of the oldest event or null if there are no events
+     */
+    @Nullable
+    @Query("SELECT min(e.createdAt) FROM OutboxEvent e")
+    OffsetDateTime findOldestCreatedAt();
+}
@@ -0,0 +1,288 @@
+package de.unistuttgart.iste.gits.course_service.persistence.repository;
+
+import de.unistuttgart.iste.gits.course_service.persistence.specification.FilterCondition;
+import de.unistuttgart.iste.gits.course_service.persistence.specification.FilterConditions;
+import jakarta.persistence.*;
+import jakarta.persistence.metamodel.EntityType;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.*;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static de.unistuttgart.iste.gits.course_service.persistence.specification.FilterCondition.ALIAS;
+
+/**
+ * Executes the queries of entities matching a {@link FilterCondition}, see {@link FilterConditions}.
+ * <p>
+ * Most queries only select some attributes of an entity instead of the whole entity. The attributes are selected as
+ * columns and returned as {@link Tuple}s, each element has the name of the attribute as alias.
+ * <p>
+ * The queries are executed as JPQL statements. As the literals of the filter are bound as parameters, the same
+ * statement is executed for all filters of the same structure, so that Hibernate reuses its translation of the
+ * statement from its query plan cache and the JDBC driver its prepared statement.
+ * <p>
+ * The statements are cached in the bounded {@value #CACHE_NAME} cache by the entity, the condition, the selected
+ * attributes and the sort order, so that they are not assembled and checked against the metamodel on every call.
+ */
+@Component
+public class ProjectionQueryExecutor {
+
+    public static final String CACHE_NAME = "filterStatements";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Cache statementCache;
+
+    public ProjectionQueryExecutor(final CacheManager cacheManager) {
+        this.statementCache = Objects.requireNonNull(cacheManager.getCache(CACHE_NAME),
+                "Cache " + CACHE_NAME + " is not configured");
+    }
+
+    /**
+     * Finds all entities matching the filter condition and selects only the given attributes.
+     *
+     * @param domainClass the entity class to query
+     * @param condition   the condition the entities must match
+     * @param attributes  the attributes to select
+     * @param sort        the sort order of the result
+     * @return the selected attributes of the matching entities
+     * @throws IllegalArgumentException if the entity does not have one of the attributes or sort properties
+     */
+    public List<Tuple> findAll(final Class<?> domainClass,
+                               final FilterCondition condition,
+                               final Collection<String> attributes,
+                               final Sort sort) {
+        return createQuery(getStatements(domainClass, condition, attributes, sort).select(), condition, Tuple.class)
+                .getResultList();
+    }
+
+    /**
+     * Finds a page of entities matching the filter condition and selects only the given attributes.
+     * The total number of elements is only counted if it cannot be derived from the page content.
+     *
+     * @param domainClass the entity class to query
+     * @param condition   the condition the entities must match
+     * @param attributes  the attributes to select
+     * @param pageable    the page to return, including the sort order
+     * @return the selected attributes of the matching entities in the requested page
+     * @throws IllegalArgumentException if the entity does not have one of the attributes or sort properties
+     */
+    public Page<Tuple> findAll(final Class<?> domainClass,
+                               final FilterCondition condition,
+                               final Collection<String> attributes,
+                               final Pageable pageable) {
+        final Statements statements = getStatements(domainClass, condition, attributes, pageable.getSort());
+        final List<Tuple> content = createQuery(statements.select(), condition, Tuple.class)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> createQuery(statements.count(), condition, Long.class).getSingleResult());
+    }
+
+    /**
+     * Finds a slice of entities matching the filter condition and selects only the given attributes.
+     * Whether there is a next slice is determined by loading one additional entity, no count query is executed.
+     *
+     * @param domainClass the entity class to query
+     * @param condition   the condition the entities must match
+     * @param attributes  the attributes to select
+     * @param pageable    the slice to return, including the sort order
+     * @return the selected attributes of the matching entities in the requested slice
+     * @throws IllegalArgumentException if the entity does not have one of the attributes or sort properties
+     */
+    public Slice<Tuple> findSlice(final Class<?> domainClass,
+                                  final FilterCondition condition,
+                                  final Collection<String> attributes,
+                                  final Pageable pageable) {
+        final String select = getStatements(domainClass, condition, attributes, pageable.getSort()).select();
+        final List<Tuple> content = new ArrayList<>(createQuery(select, condition, Tuple.class)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList());
+
+        final boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content.remove(pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    /**
+     * Finds the first entities matching the filter condition and selects only the given attributes.
+     * In contrast to {@link #findAll(Class, FilterCondition, Collection, Pageable)}, no count query is executed.
+     *
+     * @param domainClass the entity class to query
+     * @param condition   the condition the entities must match
+     * @param attributes  the attributes to select
+     * @param sort        the sort order of the result
+     * @param limit       the maximum number of entities to return
+     * @return the selected attributes of the first matching entities
+     * @throws IllegalArgumentException if the entity does not have one of the attributes or sort properties
+     */
+    public List<Tuple> findFirst(final Class<?> domainClass,
+                                 final FilterCondition condition,
+                                 final Collection<String> attributes,
+                                 final Sort sort,
+                                 final int limit) {
+        return createQuery(getStatements(domainClass, condition, attributes, sort).select(), condition, Tuple.class)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Finds all entities matching the filter condition and loads the whole entities.
+     *
+     * @param domainClass the entity class to query
+     * @param condition   the condition the entities must match
+     * @param sort        the sort order of the result
+     * @return the matching entities
+     * @throws IllegalArgumentException if the entity does not have one of the sort properties
+     */
+    public <T> List<T> findAllEntities(final Class<T> domainClass,
+                                       final FilterCondition condition,
+                                       final Sort sort) {
+        return createQuery(getStatements(domainClass, condition, null, sort).select(), condition, domainClass)
+                .getResultList();
+    }
+
+    /**
+     * Finds a page of entities matching the filter condition and loads the whole entities.
+     * The total number of elements is only counted if it cannot be derived from the page content.
+     *
+     * @param domainClass the entity class to query
+     * @param condition   the condition the entities must match
+     * @param pageable    the page to return, including the sort order
+     * @return the matching entities in the requested page
+     * @throws IllegalArgumentException if the entity does not have one of the sort properties
+     */
+    public <T> Page<T> findAllEntities(final Class<T> domainClass,
+                                       final FilterCondition condition,
+                                       final Pageable pageable) {
+        final Statements statements = getStatements(domainClass, condition, null, pageable.getSort());
+        final List<T> content = createQuery(statements.select(), condition, domainClass)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> createQuery(statements.count(), condition, Long.class).getSingleResult());
+    }
+
+    /**
+     * Counts the entities matching the filter condition.
+     *
+     * @param domainClass the entity class to query
+     * @param condition   the condition the entities must match
+     * @return the number of matching entities
+     */
+    public long count(final Class<?> domainClass, final FilterCondition condition) {
+        final String count = getStatements(domainClass, condition, null, Sort.unsorted()).count();
+        return createQuery(count, condition, Long.class).getSingleResult();
+    }
+
+    /**
+     * Returns the java type of an attribute of an entity.
+     *
+     * @param domainClass the entity class
+     * @param attribute   the name of the attribute
+     * @return the java type of the attribute
+     * @throws IllegalArgumentException if the entity does not have the attribute
+     */
+    public Class<?> getAttributeType(final Class<?> domainClass, final String attribute) {
+        return entityType(domainClass).getAttribute(attribute).getJavaType();
+    }
+
+    private <R> TypedQuery<R> createQuery(final String statement,
+                                          final FilterCondition condition,
+                                          final Class<R> resultClass) {
+        final TypedQuery<R> query = entityManager.createQuery(statement, resultClass);
+        for (int i = 0; i < condition.parameters().size(); i++) {
+            query.setParameter(i + 1, condition.parameters().get(i));
+        }
+        return query;
+    }
+
+    /**
+     * @param attributes the attributes to select, null to select the whole entities
+     */
+    private Statements getStatements(final Class<?> domainClass,
+                                     final FilterCondition condition,
+                                     @Nullable final Collection<String> attributes,
+                                     final Sort sort) {
+        final StatementKey key = new StatementKey(domainClass, condition.condition(),
+                attributes == null ? null : Set.copyOf(attributes), sort);
+        return Objects.requireNonNull(statementCache.get(key, () -> createStatements(key)));
+    }
+
+    /**
+     * Creates the select and count statements. The attributes and sort properties are checked against the
+     * metamodel, as they are written into the statements.
+     */
+    private Statements createStatements(final StatementKey key) {
+        final EntityType<?> entityType = entityType(key.domainClass());
+        final String from = " from " + entityType.getName() + " " + ALIAS
+                            + (key.condition() == null ? "" : " where " + key.condition());
+
+        final String select = key.attributes() == null
+                ? "select " + ALIAS + from
+                : key.attributes().stream()
+                        .map(attribute -> path(entityType, attribute) + " as " + attribute)
+                        .collect(Collectors.joining(", ", "select ", from));
+
+        return new Statements(select + orderBy(entityType, key.sort()), "select count(" + ALIAS + ")" + from);
+    }
+
+    private EntityType<?> entityType(final Class<?> domainClass) {
+        return entityManager.getMetamodel().entity(domainClass);
+    }
+
+    private static String orderBy(final EntityType<?> entityType, final Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        return sort.stream()
+                .map(order -> orderBy(entityType, order))
+                .collect(Collectors.joining(", ", " order by ", ""));
+    }
+
+    private static String orderBy(final EntityType<?> entityType, final Sort.Order order) {
+        final String path = order.isIgnoreCase()
+                ? "lower(" + path(entityType, order.getProperty()) + ")"
+                : path(entityType, order.getProperty());
+        final String nulls = switch (order.getNullHandling()) {
+            case NULLS_FIRST -> " nulls first";
+            case NULLS_LAST -> " nulls last";
+            case NATIVE -> "";
+        };
+        return path + (order.isAscending() ? " asc" : " desc") + nulls;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the entity does not have the attribute
+     */
+    private static String path(final EntityType<?> entityType, final String attribute) {
+        return ALIAS + "." + entityType.getAttribute(attribute).getName();
+    }
+
+    /**
+     * The shape of a query: the condition contains no literals, so all filters of the same structure share a key.
+     *
+     * @param attributes the selected attributes, null if the whole entities are selected
+     */
+    private record StatementKey(Class<?> domainClass,
+                                @Nullable String condition,
+                                @Nullable Set<String> attributes,
+                                Sort sort) {
+    }
+
+    private record Statements(String select, String count) {
+    }
+}
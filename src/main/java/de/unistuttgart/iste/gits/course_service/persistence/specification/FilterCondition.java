@@ -0,0 +1,27 @@
+package de.unistuttgart.iste.gits.course_service.persistence.specification;
+
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * A filter compiled to a JPQL condition, see {@link FilterConditions}.
+ * <p>
+ * The condition refers to the filtered entity as {@link #ALIAS} and contains the literals of the filter as positional
+ * parameters {@code ?1}, {@code ?2}, ... in the order of the parameter values. Filters with the same structure and
+ * different literals therefore have the same condition, so that the statements using it hit the query plan cache.
+ *
+ * @param condition  the JPQL condition, null if the filter does not restrict the entities
+ * @param parameters the values of the positional parameters of the condition
+ */
+public record FilterCondition(@Nullable String condition, List<Object> parameters) {
+
+    /**
+     * The alias of the filtered entity in the condition.
+     */
+    public static final String ALIAS = "e";
+
+    public FilterCondition {
+        parameters = List.copyOf(parameters);
+    }
+}
@@ -0,0 +1,323 @@
+package de.unistuttgart.iste.gits.course_service.persistence.specification;
+
+import de.unistuttgart.iste.gits.generated.dto.*;
+import org.springframework.lang.Nullable;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
+
+import static de.unistuttgart.iste.gits.course_service.persistence.specification.FilterCondition.ALIAS;
+
+/**
+ * Compiles course and chapter filters and keyset pagination positions to JPQL conditions. All filtered queries of
+ * courses and chapters are executed with these conditions.
+ * <p>
+ * The condition only depends on the structure of the filter, the literals are bound as parameters. Filters that only
+ * differ in their values therefore result in the same statement, so that Hibernate and PostgreSQL can reuse their
+ * query plans.
+ * <p>
+ * String filters are compiled for columns with a trigram index on {@code lower(column)}, see
+ * {@code V4__trigram_indexes.sql}. A contains filter is always compiled to {@code lower(column) like '%value%'}, so
+ * that the planner can use the trigram index regardless of the case sensitivity. A case-sensitive filter additionally
+ * checks {@code column like '%value%'} on the rows found with the index.
+ */
+public class FilterConditions {
+
+    /**
+     * Escape character of like patterns. A backslash is avoided, as it would have to be escaped in the JPQL literal.
+     */
+    private static final char ESCAPE_CHARACTER = '!';
+
+    private FilterConditions() {
+        // Utility class
+    }
+
+    public static FilterCondition courseFilter(@Nullable final CourseFilter filter) {
+        final Compilation compilation = new Compilation(new ArrayList<>());
+        return new FilterCondition(filter == null ? null : courseFilter(filter, compilation),
+                compilation.parameters());
+    }
+
+    /**
+     * Compiles a chapter filter restricted to the chapters of the given courses. The course ids are bound as a single
+     * parameter, so that the condition does not depend on the number of courses.
+     */
+    public static FilterCondition chapterFilter(final Collection<UUID> courseIds,
+                                                @Nullable final ChapterFilter filter) {
+        return chapterFilter(courseIds, filter, new Compilation(new ArrayList<>()));
+    }
+
+    /**
+     * Same as {@link #chapterFilter(Collection, ChapterFilter)}, but the attributes are referenced as the given
+     * columns instead of paths of the {@link FilterCondition#ALIAS}, so that the condition can be used in native
+     * queries of the chapter table. The operators of the condition have the same syntax in JPQL and in SQL.
+     *
+     * @param columns maps the attributes of chapters to their column names
+     */
+    public static FilterCondition chapterFilter(final Collection<UUID> courseIds,
+                                                @Nullable final ChapterFilter filter,
+                                                final UnaryOperator<String> columns) {
+        return chapterFilter(courseIds, filter, new Compilation(columns, new ArrayList<>()));
+    }
+
+    private static FilterCondition chapterFilter(final Collection<UUID> courseIds,
+                                                 @Nullable final ChapterFilter filter,
+                                                 final Compilation compilation) {
+        final String courseIdIn = compilation.path("courseId") + " in (" + compilation.bind(courseIds) + ")";
+        return new FilterCondition(
+                allOf(courseIdIn, filter == null ? null : chapterFilter(filter, compilation)),
+                compilation.parameters());
+    }
+
+    /**
+     * Restricts a condition to the entities that come after the given position, if the entities are ordered by the
+     * sort attribute and then by id, both in the given direction. The parameters of the position are numbered after
+     * the parameters of the condition.
+     *
+     * @param condition the condition to restrict
+     * @param attribute the sort attribute, must not be nullable. If it is "id", only the id is compared.
+     * @param value     the value of the sort attribute at the position
+     * @param id        the id of the element at the position
+     * @param ascending whether the entities are ordered ascending
+     * @return the restricted condition
+     */
+    public static FilterCondition after(final FilterCondition condition,
+                                        final String attribute,
+                                        final Object value,
+                                        final UUID id,
+                                        final boolean ascending) {
+        final Compilation compilation = new Compilation(new ArrayList<>(condition.parameters()));
+        final String operator = ascending ? " > " : " < ";
+        final String idAfter = compilation.path("id") + operator;
+
+        final String position;
+        if (attribute.equals("id")) {
+            position = idAfter + compilation.bind(id);
+        } else {
+            final String path = compilation.path(attribute);
+            position = anyOf(
+                    path + operator + compilation.bind(value),
+                    allOf(path + " = " + compilation.bind(value), idAfter + compilation.bind(id)));
+        }
+
+        return new FilterCondition(allOf(condition.condition(), position), compilation.parameters());
+    }
+
+    @Nullable
+    private static String courseFilter(final CourseFilter filter, final Compilation compilation) {
+        return anyOf(
+                allOf(
+                        stringFilter("title", filter.getTitle(), compilation),
+                        stringFilter("description", filter.getDescription(), compilation),
+                        dateTimeFilter("startDate", filter.getStartDate(), compilation),
+                        dateTimeFilter("endDate", filter.getEndDate(), compilation),
+                        booleanFilter("published", filter.getPublished(), compilation),
+                        and(filter.getAnd(), compilation, FilterConditions::courseFilter),
+                        not(filter.getNot(), compilation, FilterConditions::courseFilter)),
+                or(filter.getOr(), compilation, FilterConditions::courseFilter));
+    }
+
+    @Nullable
+    private static String chapterFilter(final ChapterFilter filter, final Compilation compilation) {
+        return anyOf(
+                allOf(
+                        stringFilter("title", filter.getTitle(), compilation),
+                        stringFilter("description", filter.getDescription(), compilation),
+                        dateTimeFilter("startDate", filter.getStartDate(), compilation),
+                        dateTimeFilter("endDate", filter.getEndDate(), compilation),
+                        dateTimeFilter("suggestedStartDate", filter.getSuggestedStartDate(), compilation),
+                        dateTimeFilter("suggestedEndDate", filter.getSuggestedEndDate(), compilation),
+                        intFilter("number", filter.getNumber(), compilation),
+                        and(filter.getAnd(), compilation, FilterConditions::chapterFilter),
+                        not(filter.getNot(), compilation, FilterConditions::chapterFilter)),
+                or(filter.getOr(), compilation, FilterConditions::chapterFilter));
+    }
+
+    @Nullable
+    private static String stringFilter(final String attribute,
+                                       @Nullable final StringFilter filter,
+                                       final Compilation compilation) {
+        if (filter == null) {
+            return null;
+        }
+
+        final String path = compilation.path(attribute);
+        final boolean ignoreCase = Boolean.TRUE.equals(filter.getIgnoreCase());
+
+        final String equals;
+        if (filter.getEquals() == null) {
+            equals = null;
+        } else if (ignoreCase) {
+            equals = "lower(" + path + ") = " + compilation.bind(filter.getEquals().toLowerCase());
+        } else {
+            equals = path + " = " + compilation.bind(filter.getEquals());
+        }
+
+        final String contains;
+        if (filter.getContains() == null) {
+            contains = null;
+        } else {
+            final String pattern = "%" + escapeLikePattern(filter.getContains()) + "%";
+            contains = allOf(
+                    "lower(" + path + ") like " + compilation.bind(pattern.toLowerCase()) + likeEscape(),
+                    ignoreCase ? null : path + " like " + compilation.bind(pattern) + likeEscape());
+        }
+
+        return allOf(equals, contains);
+    }
+
+    @Nullable
+    private static String dateTimeFilter(final String attribute,
+                                         @Nullable final DateTimeFilter filter,
+                                         final Compilation compilation) {
+        if (filter == null) {
+            return null;
+        }
+        final String path = compilation.path(attribute);
+        return allOf(
+                filter.getAfter() == null ? null : path + " > " + compilation.bind(filter.getAfter()),
+                filter.getBefore() == null ? null : path + " < " + compilation.bind(filter.getBefore()));
+    }
+
+    @Nullable
+    private static String intFilter(final String attribute,
+                                    @Nullable final IntFilter filter,
+                                    final Compilation compilation) {
+        if (filter == null) {
+            return null;
+        }
+        final String path = compilation.path(attribute);
+        return allOf(
+                filter.getEquals() == null ? null : path + " = " + compilation.bind(filter.getEquals()),
+                filter.getGreaterThan() == null ? null : path + " > " + compilation.bind(filter.getGreaterThan()),
+                filter.getLessThan() == null ? null : path + " < " + compilation.bind(filter.getLessThan()));
+    }
+
+    @Nullable
+    private static String booleanFilter(final String attribute,
+                                        @Nullable final Boolean filter,
+                                        final Compilation compilation) {
+        if (filter == null) {
+            return null;
+        }
+        return compilation.path(attribute) + " = " + compilation.bind(filter);
+    }
+
+    @Nullable
+    private static <F> String and(@Nullable final List<F> filters,
+                                  final Compilation compilation,
+                                  final BiFunction<F, Compilation, String> compiler) {
+        if (filters == null) {
+            return null;
+        }
+        return allOf(compileAll(filters, compilation, compiler));
+    }
+
+    @Nullable
+    private static <F> String or(@Nullable final List<F> filters,
+                                 final Compilation compilation,
+                                 final BiFunction<F, Compilation, String> compiler) {
+        if (filters == null) {
+            return null;
+        }
+        return anyOf(compileAll(filters, compilation, compiler));
+    }
+
+    @Nullable
+    private static <F> String not(@Nullable final F filter,
+                                  final Compilation compilation,
+                                  final BiFunction<F, Compilation, String> compiler) {
+        if (filter == null) {
+            return null;
+        }
+        final String condition = compiler.apply(filter, compilation);
+        return condition == null ? null : "not (" + condition + ")";
+    }
+
+    /**
+     * Compiles the filters one after another, so that the parameters are numbered in the order of the conditions.
+     */
+    private static <F> String[] compileAll(final List<F> filters,
+                                           final Compilation compilation,
+                                           final BiFunction<F, Compilation, String> compiler) {
+        final String[] conditions = new String[filters.size()];
+        for (int i = 0; i < filters.size(); i++) {
+            conditions[i] = compiler.apply(filters.get(i), compilation);
+        }
+        return conditions;
+    }
+
+    /**
+     * Combines the given conditions with and, conditions that are null are ignored.
+     *
+     * @return the combined condition, null if all conditions are null
+     */
+    @Nullable
+    private static String allOf(final String... conditions) {
+        return combine(" and ", conditions);
+    }
+
+    /**
+     * Combines the given conditions with or, conditions that are null are ignored.
+     *
+     * @return the combined condition, null if all conditions are null
+     */
+    @Nullable
+    private static String anyOf(final String... conditions) {
+        return combine(" or ", conditions);
+    }
+
+    @Nullable
+    private static String combine(final String operator, final String... conditions) {
+        final List<String> present = Arrays.stream(conditions).filter(Objects::nonNull).toList();
+        if (present.isEmpty()) {
+            return null;
+        }
+        if (present.size() == 1) {
+            return present.get(0);
+        }
+        return "(" + String.join(operator, present) + ")";
+    }
+
+    private static String likeEscape() {
+        return " escape '" + ESCAPE_CHARACTER + "'";
+    }
+
+    /**
+     * Escapes the wildcards of like patterns, so that the value is matched literally.
+     */
+    private static String escapeLikePattern(final String value) {
+        final String escape = String.valueOf(ESCAPE_CHARACTER);
+        return value.replace(escape, escape + escape)
+                .replace("%", escape + "%")
+                .replace("_", escape + "_");
+    }
+
+    /**
+     * The state of compiling a condition: how attributes are referenced and the parameters bound so far.
+     */
+    private record Compilation(UnaryOperator<String> paths, List<Object> parameters) {
+
+        /**
+         * Starts a compilation in which the attributes are referenced as paths of the {@link FilterCondition#ALIAS}.
+         */
+        Compilation(final List<Object> parameters) {
+            this(attribute -> ALIAS + "." + attribute, parameters);
+        }
+
+        String path(final String attribute) {
+            return paths.apply(attribute);
+        }
+
+        /**
+         * Adds the value as the next positional parameter.
+         *
+         * @return the placeholder of the parameter
+         */
+        String bind(final Object value) {
+            parameters.add(value);
+            return "?" + parameters.size();
+        }
+    }
+}
@@ -6,6 +6,10 @@ import jakarta.validation.ValidationException;
 import org.springframework.stereotype.Component;
 
 import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Validates chapter related input.
@@ -36,6 +40,43 @@ public class ChapterValidator {
         validateDates(input.getStartDate(), input.getEndDate(), input.getSuggestedStartDate(), input.getSuggestedEndDate());
     }
 
+    /**
+     * Validates all inputs for creating chapters before any of them is created.
+     *
+     * @throws ValidationException if at least one input is invalid, the message contains the index of the input
+     * @see #validateCreateChapterInput(CreateChapterInput)
+     */
+    public void validateCreateChapterInputs(List<CreateChapterInput> inputs) {
+        for (int i = 0; i < inputs.size(); i++) {
+            try {
+                validateCreateChapterInput(inputs.get(i));
+            } catch (ValidationException e) {
+                throw new ValidationException("Invalid input at index " + i + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Validates all inputs for updating chapters before any of them is updated.
+     * Additionally, a chapter must not be updated more than once.
+     *
+     * @throws ValidationException if at least one input is invalid, the message contains the index of the input
+     * @see #validateUpdateChapterInput(UpdateChapterInput)
+     */
+    public void validateUpdateChapterInputs(List<UpdateChapterInput> inputs) {
+        Set<UUID> ids = new HashSet<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            try {
+                validateUpdateChapterInput(inputs.get(i));
+            } catch (ValidationException e) {
+                throw new ValidationException("Invalid input at index " + i + ": " + e.getMessage());
+            }
+            if (!ids.add(inputs.get(i).getId())) {
+                throw new ValidationException("Invalid input at index " + i + ": Chapter is updated more than once");
+            }
+        }
+    }
+
     private void validateDates(OffsetDateTime startDate, OffsetDateTime endDate, OffsetDateTime suggestedStartDate, OffsetDateTime suggestedEndDate) {
         if (startDate.isAfter(endDate)) {
             throw new ValidationException("Start date must be before end date");
@@ -0,0 +1,238 @@
+package de.unistuttgart.iste.gits.course_service.persistence.validation;
+
+import de.unistuttgart.iste.gits.generated.dto.ChapterFilter;
+import de.unistuttgart.iste.gits.generated.dto.CourseFilter;
+import jakarta.validation.ValidationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Normalizes course and chapter filters before the specifications are built from them and limits their complexity,
+ * as the and, or and not fields of the filters can be nested arbitrarily.
+ * <p>
+ * The normalization keeps the meaning of a filter:
+ * <ul>
+ *     <li>subfilters without any predicate are removed, a filter without any predicate becomes null</li>
+ *     <li>subfilters of an and (or) list that only consist of an and (or) list are replaced by the elements of the
+ *     list, a filter that only consists of an and or or list with a single element is replaced by this element</li>
+ *     <li>a double negation is replaced by the negated filter</li>
+ *     <li>identical subfilters of the same and or or list are only kept once</li>
+ * </ul>
+ * The nesting depth is checked while the filter is normalized, the number of predicates of the normalized filter.
+ * The limits are configured with {@code filter.max-depth} and {@code filter.max-predicates}.
+ */
+@Component
+public class FilterNormalizer {
+
+    private static final FilterType<CourseFilter> COURSE_FILTER = new FilterType<>(
+            filter -> Arrays.asList(filter.getTitle(), filter.getDescription(), filter.getStartDate(),
+                    filter.getEndDate(), filter.getPublished()),
+            CourseFilter::getAnd,
+            CourseFilter::getOr,
+            CourseFilter::getNot,
+            (filter, and, or, not) -> CourseFilter.builder()
+                    .setTitle(filter.getTitle())
+                    .setDescription(filter.getDescription())
+                    .setStartDate(filter.getStartDate())
+                    .setEndDate(filter.getEndDate())
+                    .setPublished(filter.getPublished())
+                    .setAnd(and)
+                    .setOr(or)
+                    .setNot(not)
+                    .build());
+
+    private static final FilterType<ChapterFilter> CHAPTER_FILTER = new FilterType<>(
+            filter -> Arrays.asList(filter.getTitle(), filter.getDescription(), filter.getNumber(),
+                    filter.getStartDate(), filter.getEndDate(), filter.getSuggestedStartDate(),
+                    filter.getSuggestedEndDate()),
+            ChapterFilter::getAnd,
+            ChapterFilter::getOr,
+            ChapterFilter::getNot,
+            (filter, and, or, not) -> ChapterFilter.builder()
+                    .setTitle(filter.getTitle())
+                    .setDescription(filter.getDescription())
+                    .setNumber(filter.getNumber())
+                    .setStartDate(filter.getStartDate())
+                    .setEndDate(filter.getEndDate())
+                    .setSuggestedStartDate(filter.getSuggestedStartDate())
+                    .setSuggestedEndDate(filter.getSuggestedEndDate())
+                    .setAnd(and)
+                    .setOr(or)
+                    .setNot(not)
+                    .build());
+
+    private final int maxDepth;
+    private final int maxPredicates;
+
+    public FilterNormalizer(@Value("${filter.max-depth:10}") final int maxDepth,
+                            @Value("${filter.max-predicates:100}") final int maxPredicates) {
+        this.maxDepth = maxDepth;
+        this.maxPredicates = maxPredicates;
+    }
+
+    /**
+     * Normalizes a course filter.
+     *
+     * @param filter the filter, may be null
+     * @return the normalized filter, null if the filter does not contain any predicate
+     * @throws ValidationException if the filter is nested too deeply or contains too many predicates
+     */
+    @Nullable
+    public CourseFilter normalize(@Nullable final CourseFilter filter) {
+        return normalize(filter, COURSE_FILTER);
+    }
+
+    /**
+     * Normalizes a chapter filter.
+     *
+     * @param filter the filter, may be null
+     * @return the normalized filter, null if the filter does not contain any predicate
+     * @throws ValidationException if the filter is nested too deeply or contains too many predicates
+     */
+    @Nullable
+    public ChapterFilter normalize(@Nullable final ChapterFilter filter) {
+        return normalize(filter, CHAPTER_FILTER);
+    }
+
+    @Nullable
+    private <F> F normalize(@Nullable final F filter, final FilterType<F> type) {
+        if (filter == null) {
+            return null;
+        }
+
+        final F normalized = normalize(filter, type, 0);
+        if (normalized == null) {
+            return null;
+        }
+
+        final int predicates = countPredicates(normalized, type);
+        if (predicates > maxPredicates) {
+            throw new ValidationException("Filter contains " + predicates + " predicates, at most " + maxPredicates
+                                          + " are allowed");
+        }
+        return normalized;
+    }
+
+    /**
+     * @return the normalized filter or null if the filter does not contain any predicate
+     */
+    @Nullable
+    private <F> F normalize(final F filter, final FilterType<F> type, final int depth) {
+        if (depth > maxDepth) {
+            throw new ValidationException("Filter is nested too deeply, at most " + maxDepth
+                                          + " levels of and, or and not are allowed");
+        }
+
+        final List<F> and = normalizeList(type.and().apply(filter), type, Connective.AND, depth + 1);
+        final List<F> or = normalizeList(type.or().apply(filter), type, Connective.OR, depth + 1);
+        F not = type.not().apply(filter) == null ? null : normalize(type.not().apply(filter), type, depth + 1);
+
+        if (not != null && isOnly(not, type, Connective.NOT)) {
+            // not(not(x)) = x, which has to hold in addition to the other predicates
+            final F negatedTwice = type.not().apply(not);
+            if (!and.contains(negatedTwice)) {
+                and.add(negatedTwice);
+            }
+            not = null;
+        }
+
+        final boolean hasPredicates = hasOwnPredicates(filter, type);
+        if (!hasPredicates && not == null) {
+            if (or.isEmpty() && and.size() == 1) {
+                return and.get(0);
+            }
+            if (and.isEmpty() && or.size() == 1) {
+                return or.get(0);
+            }
+            if (and.isEmpty() && or.isEmpty()) {
+                return null;
+            }
+        }
+
+        return type.factory().create(filter, and.isEmpty() ? null : and, or.isEmpty() ? null : or, not);
+    }
+
+    /**
+     * Normalizes the subfilters of an and or or list, removes empty and duplicate subfilters and flattens subfilters
+     * that only consist of a list of the same kind.
+     */
+    private <F> List<F> normalizeList(@Nullable final List<F> filters,
+                                      final FilterType<F> type,
+                                      final Connective connective,
+                                      final int depth) {
+        if (filters == null) {
+            return new ArrayList<>();
+        }
+
+        final Set<F> result = new LinkedHashSet<>();
+        for (final F filter : filters) {
+            final F normalized = normalize(filter, type, depth);
+            if (normalized == null) {
+                continue;
+            }
+            if (isOnly(normalized, type, connective)) {
+                result.addAll(connective == Connective.AND ? type.and().apply(normalized) : type.or().apply(normalized));
+            } else {
+                result.add(normalized);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Checks whether the normalized filter only consists of an and list, an or list or a not, respectively.
+     */
+    private static <F> boolean isOnly(final F filter, final FilterType<F> type, final Connective connective) {
+        return !hasOwnPredicates(filter, type)
+               && (connective == Connective.AND || type.and().apply(filter) == null)
+               && (connective == Connective.OR || type.or().apply(filter) == null)
+               && (connective == Connective.NOT || type.not().apply(filter) == null);
+    }
+
+    private static <F> boolean hasOwnPredicates(final F filter, final FilterType<F> type) {
+        return type.predicates().apply(filter).stream().anyMatch(Objects::nonNull);
+    }
+
+    private static <F> int countPredicates(final F filter, final FilterType<F> type) {
+        int count = (int) type.predicates().apply(filter).stream().filter(Objects::nonNull).count();
+        for (final F subfilter : Objects.requireNonNullElse(type.and().apply(filter), List.<F>of())) {
+            count += countPredicates(subfilter, type);
+        }
+        for (final F subfilter : Objects.requireNonNullElse(type.or().apply(filter), List.<F>of())) {
+            count += countPredicates(subfilter, type);
+        }
+        if (type.not().apply(filter) != null) {
+            count += countPredicates(type.not().apply(filter), type);
+        }
+        return count;
+    }
+
+    /**
+     * Access to the fields of a filter type, which are generated without a common interface.
+     *
+     * @param predicates the predicates of a filter on its own attributes, null if not set
+     * @param and        the and list of a filter
+     * @param or         the or list of a filter
+     * @param not        the negated subfilter of a filter
+     * @param factory    creates a copy of a filter with the same predicates and the given subfilters
+     */
+    private record FilterType<F>(Function<F, List<Object>> predicates,
+                                 Function<F, List<F>> and,
+                                 Function<F, List<F>> or,
+                                 Function<F, F> not,
+                                 FilterFactory<F> factory) {
+    }
+
+    private enum Connective {
+        AND, OR, NOT
+    }
+
+    @FunctionalInterface
+    private interface FilterFactory<F> {
+        F create(F predicatesOf, @Nullable List<F> and, @Nullable List<F> or, @Nullable F not);
+    }
+}
@@ -0,0 +1,37 @@
+package de.unistuttgart.iste.gits.course_service.service;
+
+import de.unistuttgart.iste.gits.common.event.CrudOperation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Evicts entries of the local caches when an entity changed on any replica of the service.
+ * <p>
+ * Every replica has its own caches, so the change events published by the replica that executed a mutation
+ * are received by all replicas, including the publishing one, from the change topics. This requires a consumer id
+ * per instance in the pub/sub component, see {@code components/pubsub.yaml}. As the events are published through the
+ * outbox, the entries are evicted about the coalescing window plus the relay interval after the change.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidator {
+
+    private final CourseCache courseCache;
+
+    /**
+     * Handles a change of a course. Updated and deleted courses are evicted from the course cache.
+     *
+     * @param courseId  the id of the changed course
+     * @param operation the operation that changed the course
+     */
+    public void courseChanged(final UUID courseId, final CrudOperation operation) {
+        if (operation == CrudOperation.UPDATE || operation == CrudOperation.DELETE) {
+            log.debug("Evicting course {} from the cache after {}", courseId, operation);
+            courseCache.evict(courseId);
+        }
+    }
+}
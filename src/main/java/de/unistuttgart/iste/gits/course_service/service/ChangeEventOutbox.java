@@ -0,0 +1,67 @@
+package de.unistuttgart.iste.gits.course_service.service;
+
+import de.unistuttgart.iste.gits.common.event.CrudOperation;
+import de.unistuttgart.iste.gits.course_service.persistence.entity.OutboxEventEntity;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Transactional outbox for the course and chapter change events.
+ * <p>
+ * The events are written to the database in the transaction of the mutation that caused them, so they are
+ * persisted if and only if the mutation is committed. They are published afterward by the {@link OutboxRelay},
+ * so the latency of the mutation does not depend on the dapr sidecar.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChangeEventOutbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    /**
+     * Adds a course change event to the outbox.
+     *
+     * @param courseId  the id of the changed course
+     * @param operation the operation that changed the course
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void courseChanged(final UUID courseId, final CrudOperation operation) {
+        outboxEventRepository.save(createEvent(OutboxEventEntity.Type.COURSE_CHANGE, courseId, operation,
+                OffsetDateTime.now()));
+    }
+
+    /**
+     * Adds a change event for each of the chapters to the outbox.
+     *
+     * @param chapterIds the ids of the changed chapters
+     * @param operation  the operation that changed the chapters
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void chaptersChanged(final List<UUID> chapterIds, final CrudOperation operation) {
+        final OffsetDateTime now = OffsetDateTime.now();
+        outboxEventRepository.saveAll(chapterIds.stream()
+                .map(chapterId -> createEvent(OutboxEventEntity.Type.CHAPTER_CHANGE, chapterId, operation, now))
+                .toList());
+    }
+
+    private static OutboxEventEntity createEvent(final OutboxEventEntity.Type type,
+                                                 final UUID entityId,
+                                                 final CrudOperation operation,
+                                                 final OffsetDateTime now) {
+        return OutboxEventEntity.builder()
+                .type(type)
+                .entityId(entityId)
+                .operation(operation)
+                .createdAt(now)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .build();
+    }
+}
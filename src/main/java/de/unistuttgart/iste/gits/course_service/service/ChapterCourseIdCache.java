@@ -0,0 +1,66 @@
+package de.unistuttgart.iste.gits.course_service.service;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Cache of the ids of the courses chapters belong to, by the id of the chapter. It lets the authorization of
+ * chapter mutations run without a query.
+ * <p>
+ * The course of a chapter never changes, so entries only have to be removed when the chapter is deleted.
+ * Entries of chapters deleted by other replicas are not removed before they expire. This is harmless, because
+ * chapters are only updated and deleted by statements restricted to the course id, which do not find a
+ * deleted chapter either.
+ */
+@Component
+public class ChapterCourseIdCache {
+
+    public static final String CACHE_NAME = "chapterCourseIds";
+
+    private final Cache cache;
+
+    public ChapterCourseIdCache(final CacheManager cacheManager) {
+        this.cache = Objects.requireNonNull(cacheManager.getCache(CACHE_NAME), "Cache " + CACHE_NAME + " is not configured");
+    }
+
+    /**
+     * Returns the id of the course of the chapter with the given id, loading and caching it if it is not cached.
+     *
+     * @param chapterId the id of the chapter
+     * @param loader    loads the course id of the chapter, must throw an exception if the chapter does not exist
+     * @return the id of the course the chapter belongs to
+     */
+    public UUID get(final UUID chapterId, final Function<UUID, UUID> loader) {
+        final UUID cachedCourseId = cache.get(chapterId, UUID.class);
+        if (cachedCourseId != null) {
+            return cachedCourseId;
+        }
+
+        final UUID courseId = loader.apply(chapterId);
+        cache.put(chapterId, courseId);
+        return courseId;
+    }
+
+    /**
+     * Adds the course id of a chapter that was created or read.
+     *
+     * @param chapterId the id of the chapter
+     * @param courseId  the id of the course the chapter belongs to
+     */
+    public void put(final UUID chapterId, final UUID courseId) {
+        cache.put(chapterId, courseId);
+    }
+
+    /**
+     * Removes the chapters with the given ids from the cache.
+     *
+     * @param chapterIds the ids of the deleted chapters
+     */
+    public void evictAll(final Collection<UUID> chapterIds) {
+        chapterIds.forEach(cache::evict);
+    }
+}
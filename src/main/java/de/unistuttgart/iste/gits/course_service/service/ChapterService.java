@@ -1,27 +1,30 @@
 package de.unistuttgart.iste.gits.course_service.service;
 
-import de.unistuttgart.iste.gits.common.dapr.TopicPublisher;
 import de.unistuttgart.iste.gits.common.event.CrudOperation;
 import de.unistuttgart.iste.gits.common.util.PaginationUtil;
 import de.unistuttgart.iste.gits.common.util.SortUtil;
 import de.unistuttgart.iste.gits.course_service.persistence.entity.ChapterEntity;
 import de.unistuttgart.iste.gits.course_service.persistence.mapper.ChapterMapper;
 import de.unistuttgart.iste.gits.course_service.persistence.repository.ChapterRepository;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.ProjectionQueryExecutor;
+import de.unistuttgart.iste.gits.course_service.persistence.specification.FilterCondition;
+import de.unistuttgart.iste.gits.course_service.persistence.specification.FilterConditions;
 import de.unistuttgart.iste.gits.course_service.persistence.validation.ChapterValidator;
+import de.unistuttgart.iste.gits.course_service.persistence.validation.FilterNormalizer;
 import de.unistuttgart.iste.gits.generated.dto.*;
+import graphql.schema.DataFetchingFieldSelectionSet;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
-import static de.unistuttgart.iste.gits.course_service.persistence.specification.ChapterFilterSpecification.chapterFilter;
-import static de.unistuttgart.iste.gits.course_service.persistence.specification.ChapterFilterSpecification.courseIdEquals;
-import static org.springframework.data.jpa.domain.Specification.where;
 
 /**
  * Service that handles chapter related operations.
@@ -30,11 +33,25 @@ import static org.springframework.data.jpa.domain.Specification.where;
 @RequiredArgsConstructor
 public class ChapterService {
 
+    /**
+     * Chapters are sorted by their number if no other sort order is given or if the given sort order is ambiguous.
+     */
+    private static final Sort DEFAULT_SORT = Sort.by("number");
+
+    /**
+     * Attributes chapters can be sorted by with cursor pagination. These attributes must not be nullable.
+     */
+    private static final Set<String> CURSOR_SORT_ATTRIBUTES = Set.of("title", "number", "startDate", "endDate");
+
     private final ChapterMapper chapterMapper;
     private final ChapterRepository chapterRepository;
     private final CourseService courseService;
     private final ChapterValidator chapterValidator;
-    private final TopicPublisher topicPublisher;
+    private final ChangeEventOutbox changeEventOutbox;
+    private final ProjectionQueryExecutor projectionQueryExecutor;
+    private final KeysetPageLoader keysetPageLoader;
+    private final ChapterCourseIdCache chapterCourseIdCache;
+    private final FilterNormalizer filterNormalizer;
 
     /**
      * Gets all chapters with the given ids.
@@ -43,8 +60,10 @@ public class ChapterService {
      * @return The chapters with the given ids in order of the given ids.
      * @throws EntityNotFoundException If at least one of the chapters could not be found.
      */
+    @Transactional(readOnly = true)
     public List<Chapter> getChaptersByIds(final List<UUID> ids) {
         return chapterRepository.getAllByIdPreservingOrder(ids).stream()
+                .map(this::cacheCourseId)
                 .map(chapterMapper::entityToDto)
                 .toList();
     }
@@ -56,117 +75,378 @@ public class ChapterService {
      * @return The created chapter.
      * @throws EntityNotFoundException If the course with the given id does not exist.
      */
+    @Transactional
     public Chapter createChapter(final CreateChapterInput chapterData) {
         chapterValidator.validateCreateChapterInput(chapterData);
         courseService.requireCourseExisting(chapterData.getCourseId());
 
         ChapterEntity chapterEntity = chapterMapper.dtoToEntity(chapterData);
         chapterEntity = chapterRepository.save(chapterEntity);
+        cacheCourseId(chapterEntity);
 
         return chapterMapper.entityToDto(chapterEntity);
     }
 
     /**
-     * Updates a chapter.
+     * Creates several chapters in one transaction. All inputs are validated and the courses are checked
+     * before any chapter is created, the chapters are inserted with JDBC batching.
+     *
+     * @param chapterData The data of the chapters to create.
+     * @return The created chapters, in the order of the inputs.
+     * @throws ValidationException     If at least one of the inputs is invalid.
+     * @throws EntityNotFoundException If the course of at least one of the chapters does not exist.
+     */
+    @Transactional
+    public List<Chapter> createChapters(final List<CreateChapterInput> chapterData) {
+        chapterValidator.validateCreateChapterInputs(chapterData);
+        courseService.requireCoursesExisting(chapterData.stream()
+                .map(CreateChapterInput::getCourseId)
+                .collect(Collectors.toSet()));
+
+        final List<ChapterEntity> chapterEntities = chapterRepository.saveAll(chapterData.stream()
+                .map(chapterMapper::dtoToEntity)
+                .toList());
+
+        return chapterEntities.stream()
+                .map(this::cacheCourseId)
+                .map(chapterMapper::entityToDto)
+                .toList();
+    }
+
+    /**
+     * Updates a chapter with a single statement, without loading it first.
      *
      * @param chapterData The data of the chapter to update.
+     * @param courseId    The id of the course the chapter belongs to, as resolved for the authorization check.
      * @return The updated chapter.
+     * @throws EntityNotFoundException If the chapter does not exist in the course.
      */
-    public Chapter updateChapter(final UpdateChapterInput chapterData) {
+    @Transactional
+    public Chapter updateChapter(final UpdateChapterInput chapterData, final UUID courseId) {
         chapterValidator.validateUpdateChapterInput(chapterData);
 
-        final UUID courseID = requireChapterExisting(chapterData.getId())
-                .getCourseId();
+        final ChapterEntity chapterEntity = chapterMapper.dtoToEntity(chapterData);
+        chapterEntity.setCourseId(courseId);
+
+        return chapterRepository.updateReturning(chapterEntity)
+                .map(chapterMapper::entityToDto)
+                .orElseThrow(() -> chapterNotFound(chapterData.getId()));
+    }
+
+    /**
+     * Updates several chapters in one transaction. All inputs are validated before any chapter is updated.
+     * The chapters are loaded with a single query and updated with JDBC batching.
+     *
+     * @param chapterData The data of the chapters to update.
+     * @return The updated chapters, in the order of the inputs.
+     * @throws ValidationException     If at least one of the inputs is invalid.
+     * @throws EntityNotFoundException If at least one of the chapters does not exist.
+     */
+    @Transactional
+    public List<Chapter> updateChapters(final List<UpdateChapterInput> chapterData) {
+        chapterValidator.validateUpdateChapterInputs(chapterData);
+
+        final List<ChapterEntity> existingChapters = chapterRepository.getAllByIdPreservingOrder(chapterData.stream()
+                .map(UpdateChapterInput::getId)
+                .toList());
 
-        ChapterEntity updatedChapterEntity = chapterMapper.dtoToEntity(chapterData);
-        updatedChapterEntity.setCourseId(courseID);
-        updatedChapterEntity = chapterRepository.save(updatedChapterEntity);
+        final List<ChapterEntity> updatedChapters = new ArrayList<>(chapterData.size());
+        for (int i = 0; i < chapterData.size(); i++) {
+            final ChapterEntity updatedChapter = chapterMapper.dtoToEntity(chapterData.get(i));
+            updatedChapter.setCourseId(existingChapters.get(i).getCourseId());
+            updatedChapters.add(updatedChapter);
+        }
 
-        return chapterMapper.entityToDto(updatedChapterEntity);
+        // the chapters are already loaded, so merging them does not select them again
+        return chapterRepository.saveAll(updatedChapters).stream()
+                .map(chapterMapper::entityToDto)
+                .toList();
     }
 
     /**
-     * Deletes a chapter.
+     * Returns the ids of the courses the given chapters belong to, without loading the chapters.
      *
-     * @param uuid The id of the chapter to delete.
-     * @return The id of the deleted chapter.
-     * @throws EntityNotFoundException If the chapter does not exist.
+     * @param chapterIds The ids of the chapters.
+     * @return The distinct ids of the courses of the existing chapters.
      */
-    public UUID deleteChapter(final UUID uuid) {
-        requireChapterExisting(uuid);
+    @Transactional(readOnly = true)
+    public List<UUID> getCourseIdsForChapterIds(final Collection<UUID> chapterIds) {
+        return chapterRepository.findCourseIdsOfChapters(chapterIds);
+    }
 
-        chapterRepository.deleteById(uuid);
+    /**
+     * Deletes a chapter with a single statement, without loading it first.
+     *
+     * @param uuid     The id of the chapter to delete.
+     * @param courseId The id of the course the chapter belongs to, as resolved for the authorization check.
+     * @return The id of the deleted chapter.
+     * @throws EntityNotFoundException If the chapter does not exist in the course.
+     */
+    @Transactional
+    public UUID deleteChapter(final UUID uuid, final UUID courseId) {
+        if (chapterRepository.deleteByIdAndCourseId(uuid, courseId) == 0) {
+            throw chapterNotFound(uuid);
+        }
+        chapterCourseIdCache.evictAll(List.of(uuid));
 
         //notify other chapter-dependent services of chapter deletion
-        topicPublisher.notifyChapterChanges(List.of(uuid), CrudOperation.DELETE);
+        changeEventOutbox.chaptersChanged(List.of(uuid), CrudOperation.DELETE);
 
         return uuid;
     }
 
     /**
-     * Gets the course for a chapter.
+     * Gets the courses for a list of chapters.
+     * The courses are loaded in a single query, each distinct course is only loaded once.
      *
-     * @param chapterId The id of the chapter to get the course for.
-     * @return The course of the chapter.
+     * @param chapters The chapters to get the courses for. The course id is taken from the course
+     *                 of the chapter DTO, so no additional chapter lookup is necessary.
+     * @return The courses of the chapters, in the same order as the given chapters.
+     * @throws EntityNotFoundException If the course of at least one of the chapters does not exist.
      */
-    public Course getCourseForChapterId(final UUID chapterId) {
-        final ChapterEntity chapterEntity = requireChapterExisting(chapterId);
+    @Transactional(readOnly = true)
+    public List<Course> getCoursesForChapters(final List<Chapter> chapters) {
+        final List<UUID> courseIds = chapters.stream()
+                .map(chapter -> chapter.getCourse().getId())
+                .distinct()
+                .toList();
+
+        final Map<UUID, Course> coursesById = courseService.getCoursesByIds(courseIds).stream()
+                .collect(Collectors.toMap(Course::getId, Function.identity()));
 
-        return courseService.getCourseById(chapterEntity.getCourseId());
+        return chapters.stream()
+                .map(chapter -> coursesById.get(chapter.getCourse().getId()))
+                .toList();
     }
 
     /**
-     * Gets the course id for a chapter.
+     * Gets the course id for a chapter, without loading the chapter. The course id is served from the
+     * {@link ChapterCourseIdCache}, so that the authorization of chapter mutations usually needs no query.
      * @param chapterId The id of the chapter to get the course id for.
      * @return The id of the course the chapter belongs to.
+     * @throws EntityNotFoundException If the chapter does not exist.
      */
+    @Transactional(readOnly = true)
     public UUID getCourseIdForChapterId(final UUID chapterId) {
-        final ChapterEntity chapterEntity = requireChapterExisting(chapterId);
+        return chapterCourseIdCache.get(chapterId, id -> chapterRepository.findCourseIdOfChapter(id)
+                .orElseThrow(() -> chapterNotFound(id)));
+    }
 
-        return chapterEntity.getCourseId();
+    private ChapterEntity cacheCourseId(final ChapterEntity chapterEntity) {
+        chapterCourseIdCache.put(chapterEntity.getId(), chapterEntity.getCourseId());
+        return chapterEntity;
+    }
+
+    private static EntityNotFoundException chapterNotFound(final UUID uuid) {
+        return new EntityNotFoundException("Chapter with id " + uuid + " not found");
     }
 
     /**
-     * Checks if a chapter exists.
+     * Gets the chapters of multiple courses. Keys with identical filter, sort and pagination arguments
+     * are answered together, so the number of queries does not depend on the number of courses.
      *
-     * @param uuid The id of the chapter to check.
-     * @return The chapter entity with the given id.
-     * @throws EntityNotFoundException If the chapter does not exist.
+     * @param keys The keys identifying the course and the arguments of the chapters field.
+     * @return The chapter payload for each of the given keys.
      */
-    private ChapterEntity requireChapterExisting(final UUID uuid) {
-        return chapterRepository.findById(uuid)
-                .orElseThrow(() -> new EntityNotFoundException("Chapter with id " + uuid + " not found"));
+    @Transactional(readOnly = true)
+    public Map<CourseChaptersKey, ChapterPayload> getChaptersOfCourses(final Collection<CourseChaptersKey> keys) {
+        final Map<ChapterQueryArguments, List<UUID>> courseIdsByArguments = keys.stream()
+                .collect(Collectors.groupingBy(CourseChaptersKey::arguments,
+                        LinkedHashMap::new,
+                        Collectors.mapping(CourseChaptersKey::courseId, Collectors.toList())));
+
+        final Map<CourseChaptersKey, ChapterPayload> result = new HashMap<>();
+        courseIdsByArguments.forEach((arguments, courseIds) ->
+                getChaptersOfCourses(courseIds, arguments).forEach((courseId, payload) ->
+                        result.put(new CourseChaptersKey(courseId, arguments), payload)));
+        return result;
     }
 
-    public ChapterPayload getChapters(final UUID courseId,
-                                      @Nullable final ChapterFilter filter,
-                                      final List<String> sortBy,
-                                      final List<SortDirection> sortDirection,
-                                      @Nullable final Pagination pagination) {
-        courseService.requireCourseExisting(courseId);
+    private Map<UUID, ChapterPayload> getChaptersOfCourses(final List<UUID> courseIds,
+                                                           final ChapterQueryArguments arguments) {
+        final Sort sort = SortUtil.createSort(arguments.sortBy(), arguments.sortDirection()).and(DEFAULT_SORT);
+        final Pageable pageRequest = PaginationUtil.createPageable(arguments.pagination(), sort);
 
-        final Sort sort = SortUtil.createSort(sortBy, sortDirection);
-        final Pageable pageRequest = PaginationUtil.createPageable(pagination, sort);
+        if (pageRequest.isPaged()) {
+            return getChapterPagesOfCourses(courseIds, arguments.filter(), pageRequest, arguments.totalCount());
+        }
 
-        final Specification<ChapterEntity> specification =
-                where(courseIdEquals(courseId)).and(chapterFilter(filter));
+        final Map<UUID, List<Chapter>> chaptersByCourseId = groupByCourseId(courseIds,
+                findChapters(courseIds, arguments.filter(), arguments.selectedAttributes(), sort));
 
-        if (pageRequest.isPaged()) {
-            final Page<ChapterEntity> result = chapterRepository.findAll(specification, pageRequest);
-            return createChapterPayloadPaged(result);
+        final Map<UUID, ChapterPayload> result = new HashMap<>();
+        chaptersByCourseId.forEach((courseId, chapters) ->
+                result.put(courseId, createChapterPayloadUnpaged(chapters)));
+        return result;
+    }
+
+    /**
+     * Finds the chapters of the courses matching the filter. If attributes are given, only these columns are loaded.
+     */
+    private List<Chapter> findChapters(final Collection<UUID> courseIds,
+                                       @Nullable final ChapterFilter filter,
+                                       @Nullable final Set<String> attributes,
+                                       final Sort sort) {
+        final FilterCondition condition = FilterConditions.chapterFilter(courseIds, filter);
+        if (attributes == null) {
+            return projectionQueryExecutor.findAllEntities(ChapterEntity.class, condition, sort).stream()
+                    .map(chapterMapper::entityToDto)
+                    .toList();
         }
 
-        final List<ChapterEntity> result = chapterRepository.findAll(specification, sort);
-        return createChapterPayloadUnpaged(result);
+        return projectionQueryExecutor.findAll(ChapterEntity.class, condition, attributes, sort)
+                .stream()
+                .map(chapterMapper::tupleToDto)
+                .toList();
+    }
+
+    /**
+     * Loads a page of the chapters matching the filter for each course with a window function query and the totals
+     * with a grouped count. If the total count is not requested, one additional chapter per course is loaded instead
+     * of counting.
+     */
+    private Map<UUID, ChapterPayload> getChapterPagesOfCourses(final List<UUID> courseIds,
+                                                               @Nullable final ChapterFilter filter,
+                                                               final Pageable pageRequest,
+                                                               final TotalCountMode totalCount) {
+        final boolean count = totalCount == TotalCountMode.EXACT;
+        final List<Chapter> chapters = chapterRepository.findPageOfChaptersPerCourse(courseIds,
+                        filter,
+                        pageRequest.getSort(),
+                        pageRequest.getOffset(),
+                        count ? pageRequest.getPageSize() : pageRequest.getPageSize() + 1)
+                .stream()
+                .map(chapterMapper::entityToDto)
+                .toList();
+        final Map<UUID, List<Chapter>> chaptersByCourseId = groupByCourseId(courseIds, chapters);
+
+        final Map<UUID, ChapterPayload> result = new HashMap<>();
+        if (count) {
+            final Map<UUID, Long> totals = chapterRepository.countChaptersPerCourse(courseIds, filter);
+            chaptersByCourseId.forEach((courseId, chaptersOfCourse) ->
+                    result.put(courseId, createChapterPayloadPaged(
+                            new PageImpl<>(chaptersOfCourse, pageRequest, totals.getOrDefault(courseId, 0L)))));
+        } else {
+            chaptersByCourseId.forEach((courseId, chaptersOfCourse) ->
+                    result.put(courseId, createChapterPayloadSliced(toSlice(chaptersOfCourse, pageRequest))));
+        }
+        return result;
     }
 
-    private ChapterPayload createChapterPayloadPaged(final Page<ChapterEntity> chapters) {
-        return chapterMapper.createChapterPayload(chapters.stream(),
+    private static Map<UUID, List<Chapter>> groupByCourseId(final List<UUID> courseIds, final List<Chapter> chapters) {
+        final Map<UUID, List<Chapter>> chaptersByCourseId = new HashMap<>();
+        // courses without chapters must be contained in the result as well
+        for (final UUID courseId : courseIds) {
+            chaptersByCourseId.put(courseId, new ArrayList<>());
+        }
+        for (final Chapter chapter : chapters) {
+            chaptersByCourseId.get(chapter.getCourse().getId()).add(chapter);
+        }
+        return chaptersByCourseId;
+    }
+
+    private static Slice<Chapter> toSlice(final List<Chapter> chaptersWithNext, final Pageable pageRequest) {
+        final boolean hasNext = chaptersWithNext.size() > pageRequest.getPageSize();
+        final List<Chapter> content = hasNext
+                ? chaptersWithNext.subList(0, pageRequest.getPageSize())
+                : chaptersWithNext;
+        return new SliceImpl<>(content, pageRequest, hasNext);
+    }
+
+    private ChapterPayload createChapterPayloadSliced(final Slice<Chapter> chapters) {
+        return chapterMapper.createChapterPayload(chapters.getContent(),
+                SlicePaginationUtil.createPaginationInfo(chapters,
+                        SlicePaginationUtil.lowerBoundOfTotalElements(chapters)));
+    }
+
+    private ChapterPayload createChapterPayloadPaged(final Page<Chapter> chapters) {
+        return chapterMapper.createChapterPayload(chapters.getContent(),
                 PaginationUtil.createPaginationInfo(chapters));
     }
 
-    private ChapterPayload createChapterPayloadUnpaged(final List<ChapterEntity> chapters) {
-        return chapterMapper.createChapterPayload(chapters.stream(),
+    private ChapterPayload createChapterPayloadUnpaged(final List<Chapter> chapters) {
+        return chapterMapper.createChapterPayload(chapters,
                 PaginationUtil.unpagedPaginationInfo(chapters.size()));
     }
+
+    /**
+     * Gets a page of the chapters of a course with cursor based pagination.
+     * Only the columns needed for the selected fields of the chapters are loaded.
+     *
+     * @param courseId      The id of the course.
+     * @param filter        Optional filter for the chapters.
+     * @param sortBy        The attribute to sort by, one of {@link #CURSOR_SORT_ATTRIBUTES}.
+     * @param sortDirection The sort direction.
+     * @param pagination    The requested page.
+     * @param selectionSet  The selection set of the payload.
+     * @return The chapters of the page and the pagination info.
+     * @throws ValidationException If the chapters cannot be sorted by the given attribute, a cursor is invalid or
+     *                             the filter is too complex.
+     */
+    @Transactional(readOnly = true)
+    public ChapterCursorPayload getChaptersOfCourseByCursor(final UUID courseId,
+                                                            @Nullable final ChapterFilter filter,
+                                                            @Nullable final String sortBy,
+                                                            final SortDirection sortDirection,
+                                                            final CursorPagination pagination,
+                                                            final DataFetchingFieldSelectionSet selectionSet) {
+        final String sortAttribute = sortBy == null ? "number" : sortBy;
+        if (!CURSOR_SORT_ATTRIBUTES.contains(sortAttribute)) {
+            throw new ValidationException("Chapters cannot be sorted by " + sortAttribute + " with cursor pagination");
+        }
+
+        final KeysetPageLoader.KeysetPage page = keysetPageLoader.load(ChapterEntity.class,
+                FilterConditions.chapterFilter(List.of(courseId), filterNormalizer.normalize(filter)),
+                getSelectedAttributes(selectionSet),
+                sortAttribute,
+                sortDirection,
+                pagination);
+
+        return chapterMapper.createChapterCursorPayload(
+                page.elements().stream().map(chapterMapper::tupleToDto).toList(),
+                page.paginationInfo());
+    }
+
+    /**
+     * Normalizes a chapter filter before it is used in {@link ChapterQueryArguments}, so that equivalent filters
+     * of different courses are loaded together.
+     *
+     * @param filter The filter of the chapters field of a course.
+     * @return The normalized filter, null if the filter does not contain any predicate.
+     * @throws ValidationException If the filter is nested too deeply or contains too many predicates.
+     */
+    @Nullable
+    public ChapterFilter normalizeFilter(@Nullable final ChapterFilter filter) {
+        return filterNormalizer.normalize(filter);
+    }
+
+    /**
+     * Determines the chapter attributes that have to be loaded for the selection set of a chapter payload.
+     *
+     * @param selectionSet The selection set of the chapters field of a course.
+     * @return The attributes to load, to be used in {@link ChapterQueryArguments}.
+     */
+    public Set<String> getSelectedAttributes(final DataFetchingFieldSelectionSet selectionSet) {
+        return chapterMapper.selectedAttributes(selectionSet.getFields("elements/*"));
+    }
+
+    /**
+     * Identifies the chapters field of a single course together with the arguments of the field.
+     */
+    public record CourseChaptersKey(UUID courseId, ChapterQueryArguments arguments) {
+    }
+
+    /**
+     * The filter, sort and pagination arguments of the chapters field of a course.
+     * If selected attributes are given, only these attributes of the chapters are loaded
+     * (except for paginated queries, which always load whole chapters).
+     * The total count mode only applies to paginated queries.
+     */
+    public record ChapterQueryArguments(@Nullable ChapterFilter filter,
+                                        List<String> sortBy,
+                                        List<SortDirection> sortDirection,
+                                        @Nullable Pagination pagination,
+                                        TotalCountMode totalCount,
+                                        @Nullable Set<String> selectedAttributes) {
+    }
 }
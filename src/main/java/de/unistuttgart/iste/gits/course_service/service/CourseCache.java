@@ -0,0 +1,93 @@
+package de.unistuttgart.iste.gits.course_service.service;
+
+import de.unistuttgart.iste.gits.generated.dto.Course;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Cache of courses by their id, in front of the lookups of courses by id.
+ * <p>
+ * The size, the time to live and the recording of statistics of the cache are configured with
+ * {@code spring.cache.caffeine.spec}, the hit, miss and eviction metrics are exposed as {@code cache.*} metrics
+ * through the actuator.
+ */
+@Component
+public class CourseCache {
+
+    public static final String CACHE_NAME = "courses";
+
+    private final Cache cache;
+
+    public CourseCache(final CacheManager cacheManager) {
+        this.cache = Objects.requireNonNull(cacheManager.getCache(CACHE_NAME), "Cache " + CACHE_NAME + " is not configured");
+    }
+
+    /**
+     * Returns the courses with the given ids. Only the courses that are not cached are loaded, with a single call
+     * of the loader, and added to the cache.
+     *
+     * @param ids    the ids of the courses to return
+     * @param loader loads the courses with the given ids, must throw an exception if a course does not exist
+     * @return the courses with the given ids, preserving the order of the ids
+     */
+    public List<Course> getAll(final List<UUID> ids, final Function<List<UUID>, List<Course>> loader) {
+        final Map<UUID, Course> coursesById = new HashMap<>();
+        final List<UUID> missingIds = new ArrayList<>();
+
+        for (final UUID id : new LinkedHashSet<>(ids)) {
+            final Course course = cache.get(id, Course.class);
+            if (course != null) {
+                coursesById.put(id, course);
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            for (final Course course : loader.apply(missingIds)) {
+                cache.put(course.getId(), course);
+                coursesById.put(course.getId(), course);
+            }
+        }
+
+        return ids.stream().map(coursesById::get).toList();
+    }
+
+    /**
+     * Returns the course with the given id, loading and caching it if it is not cached.
+     *
+     * @param id     the id of the course to return
+     * @param loader loads the course with the given id, must throw an exception if the course does not exist
+     * @return the course with the given id
+     */
+    public Course get(final UUID id, final Function<UUID, Course> loader) {
+        return getAll(List.of(id), missingIds -> List.of(loader.apply(id))).get(0);
+    }
+
+    /**
+     * Removes the course with the given id from the cache.
+     * <p>
+     * If called within a transaction, the course is removed again after the transaction completed,
+     * so that a concurrent lookup cannot cache the course as it was before the transaction.
+     *
+     * @param id the id of the course to remove
+     */
+    public void evict(final UUID id) {
+        cache.evict(id);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(final int status) {
+                    cache.evict(id);
+                }
+            });
+        }
+    }
+}
@@ -1,21 +1,27 @@
 package de.unistuttgart.iste.gits.course_service.service;
 
-import de.unistuttgart.iste.gits.common.dapr.TopicPublisher;
 import de.unistuttgart.iste.gits.common.event.CrudOperation;
 import de.unistuttgart.iste.gits.common.util.PaginationUtil;
 import de.unistuttgart.iste.gits.common.util.SortUtil;
-import de.unistuttgart.iste.gits.course_service.persistence.entity.ChapterEntity;
 import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseEntity;
 import de.unistuttgart.iste.gits.course_service.persistence.mapper.CourseMapper;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.ChapterRepository;
 import de.unistuttgart.iste.gits.course_service.persistence.repository.CourseRepository;
-import de.unistuttgart.iste.gits.course_service.persistence.specification.CourseFilterSpecification;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.CourseRepositoryCustom.CourseSearchHit;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.ProjectionQueryExecutor;
+import de.unistuttgart.iste.gits.course_service.persistence.specification.FilterCondition;
+import de.unistuttgart.iste.gits.course_service.persistence.specification.FilterConditions;
 import de.unistuttgart.iste.gits.course_service.persistence.validation.CourseValidator;
+import de.unistuttgart.iste.gits.course_service.persistence.validation.FilterNormalizer;
 import de.unistuttgart.iste.gits.generated.dto.*;
+import graphql.schema.DataFetchingFieldSelectionSet;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 
@@ -26,11 +32,23 @@ import java.util.*;
 @RequiredArgsConstructor
 public class CourseService {
 
+    /**
+     * Attributes courses can be sorted by with cursor pagination. These attributes must not be nullable.
+     */
+    private static final Set<String> CURSOR_SORT_ATTRIBUTES = Set.of(
+            "id", "title", "startDate", "endDate", "published");
+
     private final CourseRepository courseRepository;
+    private final ChapterRepository chapterRepository;
     private final MembershipService membershipService;
     private final CourseMapper courseMapper;
     private final CourseValidator courseValidator;
-    private final TopicPublisher topicPublisher;
+    private final ChangeEventOutbox changeEventOutbox;
+    private final ProjectionQueryExecutor projectionQueryExecutor;
+    private final KeysetPageLoader keysetPageLoader;
+    private final CourseCache courseCache;
+    private final ChapterCourseIdCache chapterCourseIdCache;
+    private final FilterNormalizer filterNormalizer;
 
     /**
      * Creates a course.
@@ -38,6 +56,7 @@ public class CourseService {
      * @param courseInput The data of the course to create.
      * @return The created course.
      */
+    @Transactional
     public Course createCourse(final CreateCourseInput courseInput, final UUID userId) {
         courseValidator.validateCreateCourseInput(courseInput);
 
@@ -57,11 +76,16 @@ public class CourseService {
      * @param input The data of the course to update.
      * @return The updated course.
      */
+    @Transactional
     public Course updateCourse(final UpdateCourseInput input) {
         courseValidator.validateUpdateCourseInput(input);
         requireCourseExisting(input.getId());
 
         final CourseEntity updatedCourseEntity = courseRepository.save(courseMapper.dtoToEntity(input));
+        courseCache.evict(input.getId());
+
+        // other replicas evict the course from their caches when they receive the change
+        changeEventOutbox.courseChanged(input.getId(), CrudOperation.UPDATE);
 
         return courseMapper.entityToDto(updatedCourseEntity);
     }
@@ -73,46 +97,51 @@ public class CourseService {
      * @return The id of the deleted course.
      * @throws EntityNotFoundException If a course with the given id does not exist.
      */
+    @Transactional
     public UUID deleteCourse(final UUID uuid) {
-        //collect chapters that would be deleted with the course due to cascading deletion
-        final CourseEntity entity = requireCourseExisting(uuid);
-        final List<UUID> chapterIds = entity.getChapters().stream().map(ChapterEntity::getId).toList();
-
-        // delete Memberships
+        // memberships, chapters and the course are deleted with one statement each, without loading them
         membershipService.deleteMembershipByCourseId(uuid);
-        //delete course and any chapters
-        courseRepository.delete(entity);
+        final List<UUID> chapterIds = chapterRepository.deleteAllOfCourseReturningIds(uuid);
+        if (courseRepository.deleteCourseById(uuid) == 0) {
+            // rolls back the deletion of memberships and chapters
+            throw new EntityNotFoundException("Course with id " + uuid + " not found");
+        }
+        courseCache.evict(uuid);
+        chapterCourseIdCache.evictAll(chapterIds);
 
-        //publish changes
-        topicPublisher.notifyCourseChanges(uuid, CrudOperation.DELETE);
-        topicPublisher.notifyChapterChanges(chapterIds, CrudOperation.DELETE);
+        // the changes are published by the outbox relay after the commit
+        changeEventOutbox.courseChanged(uuid, CrudOperation.DELETE);
+        changeEventOutbox.chaptersChanged(chapterIds, CrudOperation.DELETE);
 
         return uuid;
     }
 
     /**
-     * Returns a list of courses by their ids.
+     * Returns a list of courses by their ids. The courses are served from the {@link CourseCache},
+     * only courses that are not cached are loaded from the database.
      *
      * @param ids The ids of the courses to return.
      * @return A list of courses with the given ids, preserving the order of the ids.
      * @throws EntityNotFoundException If a course with at least one of the given ids does not exist.
      */
+    @Transactional(readOnly = true)
     public List<Course> getCoursesByIds(final List<UUID> ids) {
-        return courseRepository.getAllByIdPreservingOrder(ids)
+        return courseCache.getAll(ids, missingIds -> courseRepository.getAllByIdPreservingOrder(missingIds)
                 .stream()
                 .map(courseMapper::entityToDto)
-                .toList();
+                .toList());
     }
 
     /**
-     * Returns a course by its id.
+     * Returns a course by its id. The course is served from the {@link CourseCache} if it is cached.
      *
      * @param courseId The id of the course to return.
      * @return The course with the given id.
+     * @throws EntityNotFoundException If a course with the given id does not exist.
      */
+    @Transactional(readOnly = true)
     public Course getCourseById(final UUID courseId) {
-        final CourseEntity entity = requireCourseExisting(courseId);
-        return courseMapper.entityToDto(entity);
+        return courseCache.get(courseId, id -> courseMapper.entityToDto(requireCourseExisting(id)));
     }
 
     /**
@@ -122,45 +151,205 @@ public class CourseService {
      * @return The course with the given id.
      * @throws EntityNotFoundException If a course with the given id does not exist.
      */
+    @Transactional(readOnly = true)
     public CourseEntity requireCourseExisting(final UUID id) {
         return courseRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Course with id " + id + " not found"));
     }
 
+    /**
+     * Checks if courses with the given ids exist, without loading them. If not, an EntityNotFoundException is thrown.
+     *
+     * @param ids The ids of the courses to check.
+     * @throws EntityNotFoundException If a course with at least one of the given ids does not exist.
+     */
+    @Transactional(readOnly = true)
+    public void requireCoursesExisting(final Collection<UUID> ids) {
+        final Set<UUID> existingIds = new HashSet<>(courseRepository.findExistingIds(ids));
+        final List<String> missingIds = ids.stream()
+                .filter(id -> !existingIds.contains(id))
+                .map(UUID::toString)
+                .toList();
+        if (!missingIds.isEmpty()) {
+            throw new EntityNotFoundException("Course(s) with id(s) " + String.join(", ", missingIds) + " not found");
+        }
+    }
+
     /**
      * Returns a list of all courses.
      *
-     * @param filter        optional filter for the courses
+     * @param filter        optional filter for the courses, which is normalized before it is applied
      * @param sortBy        list of sort fields
      * @param sortDirection list of sort directions
      * @param pagination    optional pagination
+     * @param totalCount    how the total number of courses is determined if pagination is given
+     * @param selectionSet  optional selection set of the payload, if given only the columns needed for the selected
+     *                      fields of the courses are loaded
      * @return a list of all courses
+     * @throws ValidationException if the filter is nested too deeply or contains too many predicates
      */
+    @Transactional(readOnly = true)
     public CoursePayload getCourses(final CourseFilter filter,
                                     final List<String> sortBy,
                                     final List<SortDirection> sortDirection,
-                                    final Pagination pagination) {
+                                    final Pagination pagination,
+                                    final TotalCountMode totalCount,
+                                    @Nullable final DataFetchingFieldSelectionSet selectionSet) {
 
         final Sort sort = SortUtil.createSort(sortBy, sortDirection);
         final Pageable pageRequest = PaginationUtil.createPageable(pagination, sort);
 
-        final Specification<CourseEntity> specification = CourseFilterSpecification.courseFilter(filter);
+        final CourseFilter normalizedFilter = filterNormalizer.normalize(filter);
+        final FilterCondition condition = FilterConditions.courseFilter(normalizedFilter);
+
+        if (pageRequest.isPaged() && totalCount != TotalCountMode.EXACT) {
+            final Set<String> attributes = selectionSet != null
+                    ? courseMapper.selectedAttributes(selectionSet.getFields("elements/*"))
+                    : courseMapper.allAttributes();
+            return getCoursesWithoutCount(condition, attributes, pageRequest,
+                    totalCount == TotalCountMode.ESTIMATE && normalizedFilter == null);
+        }
+
+        if (selectionSet != null) {
+            final Set<String> attributes = courseMapper.selectedAttributes(selectionSet.getFields("elements/*"));
+            return getCoursesProjected(condition, attributes, sort, pageRequest);
+        }
 
         if (pageRequest.isPaged()) {
-            final Page<CourseEntity> result = courseRepository.findAll(specification, pageRequest);
+            final Page<CourseEntity> result = projectionQueryExecutor
+                    .findAllEntities(CourseEntity.class, condition, pageRequest);
             return createCoursePayloadPaged(result);
         }
 
-        final List<CourseEntity> result = courseRepository.findAll(specification, sort);
+        final List<CourseEntity> result = projectionQueryExecutor.findAllEntities(CourseEntity.class, condition, sort);
         return createCoursePayloadUnpaged(result);
     }
 
+    /**
+     * Returns a page of courses with cursor based pagination. Only the columns needed for the selected fields
+     * of the courses are loaded.
+     *
+     * @param filter        optional filter
+     * @param sortBy        the attribute to sort by, one of {@link #CURSOR_SORT_ATTRIBUTES}
+     * @param sortDirection the sort direction
+     * @param pagination    the requested page
+     * @param selectionSet  the selection set of the payload
+     * @return the courses of the page and the pagination info
+     * @throws ValidationException if the courses cannot be sorted by the given attribute, a cursor is invalid or
+     *                             the filter is too complex
+     */
+    @Transactional(readOnly = true)
+    public CourseCursorPayload getCoursesByCursor(@Nullable final CourseFilter filter,
+                                                  @Nullable final String sortBy,
+                                                  final SortDirection sortDirection,
+                                                  final CursorPagination pagination,
+                                                  final DataFetchingFieldSelectionSet selectionSet) {
+        final String sortAttribute = sortBy == null ? "id" : sortBy;
+        if (!CURSOR_SORT_ATTRIBUTES.contains(sortAttribute)) {
+            throw new ValidationException("Courses cannot be sorted by " + sortAttribute + " with cursor pagination");
+        }
+
+        final KeysetPageLoader.KeysetPage page = keysetPageLoader.load(CourseEntity.class,
+                FilterConditions.courseFilter(filterNormalizer.normalize(filter)),
+                courseMapper.selectedAttributes(selectionSet.getFields("elements/*")),
+                sortAttribute,
+                sortDirection,
+                pagination);
+
+        return courseMapper.createCursorPayload(
+                page.elements().stream().map(courseMapper::tupleToDto).toList(),
+                page.paginationInfo());
+    }
+
+    /**
+     * Searches courses by their title, description and the titles of their chapters, see
+     * {@link CourseRepository#search(String, long, int)}. The results are not counted, one additional result is
+     * loaded to determine whether there is a next page. The courses of the results are served from the
+     * {@link CourseCache}.
+     *
+     * @param query      the search terms
+     * @param pagination the requested page
+     * @return the results of the page, best results first, and the pagination info with a lower bound of the total
+     * number of results
+     * @throws ValidationException if the query is blank
+     */
+    @Transactional(readOnly = true)
+    public CourseSearchPayload searchCourses(final String query, final Pagination pagination) {
+        if (query.isBlank()) {
+            throw new ValidationException("The search query must not be blank");
+        }
+
+        final Pageable pageRequest = PaginationUtil.createPageable(pagination, Sort.unsorted());
+        final List<CourseSearchHit> hitsWithNext = courseRepository.search(query,
+                pageRequest.getOffset(), pageRequest.getPageSize() + 1);
+        final boolean hasNext = hitsWithNext.size() > pageRequest.getPageSize();
+        final List<CourseSearchHit> hits = hasNext
+                ? hitsWithNext.subList(0, pageRequest.getPageSize())
+                : hitsWithNext;
+
+        final List<Course> courses = getCoursesByIds(hits.stream().map(CourseSearchHit::courseId).toList());
+        final List<CourseSearchResult> results = new ArrayList<>(hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            results.add(CourseSearchResult.builder()
+                    .setCourse(courses.get(i))
+                    .setRank(hits.get(i).rank())
+                    .setTitleHighlight(hits.get(i).titleHighlight())
+                    .setDescriptionSnippet(hits.get(i).descriptionSnippet())
+                    .build());
+        }
+
+        final Slice<CourseSearchResult> slice = new SliceImpl<>(results, pageRequest, hasNext);
+        return courseMapper.createSearchPayload(results, SlicePaginationUtil.createPaginationInfo(slice,
+                SlicePaginationUtil.lowerBoundOfTotalElements(slice)));
+    }
+
+    /**
+     * Loads a slice of courses without counting them. The total number of courses is either estimated
+     * from the table statistics or a lower bound derived from the slice.
+     */
+    private CoursePayload getCoursesWithoutCount(final FilterCondition condition,
+                                                 final Set<String> attributes,
+                                                 final Pageable pageRequest,
+                                                 final boolean estimate) {
+        final Slice<Course> result = projectionQueryExecutor
+                .findSlice(CourseEntity.class, condition, attributes, pageRequest)
+                .map(courseMapper::tupleToDto);
+
+        long totalElements = SlicePaginationUtil.lowerBoundOfTotalElements(result);
+        if (estimate) {
+            totalElements = Math.max(totalElements, courseRepository.estimateCount());
+        }
+
+        return courseMapper.createPayload(result.getContent(),
+                SlicePaginationUtil.createPaginationInfo(result, totalElements));
+    }
+
+    private CoursePayload getCoursesProjected(final FilterCondition condition,
+                                              final Set<String> attributes,
+                                              final Sort sort,
+                                              final Pageable pageRequest) {
+        if (pageRequest.isPaged()) {
+            final Page<Course> result = projectionQueryExecutor
+                    .findAll(CourseEntity.class, condition, attributes, pageRequest)
+                    .map(courseMapper::tupleToDto);
+            return courseMapper.createPayload(result.getContent(), PaginationUtil.createPaginationInfo(result));
+        }
+
+        final List<Course> result = projectionQueryExecutor
+                .findAll(CourseEntity.class, condition, attributes, sort)
+                .stream()
+                .map(courseMapper::tupleToDto)
+                .toList();
+        return courseMapper.createPayload(result, PaginationUtil.unpagedPaginationInfo(result.size()));
+    }
+
     /**
      * Returns a map of courses by their course memberships.
      *
      * @param courseMemberships The course memberships to get the courses for.
      * @return A map of courses by their course memberships.
      */
+    @Transactional(readOnly = true)
     public Map<CourseMembership, Course> getCoursesByCourseMemberships(final List<CourseMembership> courseMemberships) {
         final List<UUID> courseIds = courseMemberships.stream()
                 .map(CourseMembership::getCourseId)
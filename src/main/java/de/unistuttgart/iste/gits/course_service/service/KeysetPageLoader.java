@@ -0,0 +1,171 @@
+package de.unistuttgart.iste.gits.course_service.service;
+
+import de.unistuttgart.iste.gits.course_service.persistence.repository.ProjectionQueryExecutor;
+import de.unistuttgart.iste.gits.course_service.persistence.specification.FilterCondition;
+import de.unistuttgart.iste.gits.course_service.persistence.specification.FilterConditions;
+import de.unistuttgart.iste.gits.generated.dto.CursorPagination;
+import de.unistuttgart.iste.gits.generated.dto.CursorPaginationInfo;
+import de.unistuttgart.iste.gits.generated.dto.SortDirection;
+import jakarta.persistence.Tuple;
+import jakarta.validation.ValidationException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Loads pages of a cursor based (keyset) pagination.
+ * <p>
+ * Instead of skipping a number of rows, a page is loaded by seeking directly after (or before) the position
+ * identified by the cursor, which consists of the value of the sort attribute and the id of an element.
+ * Whether there is a next page is determined by loading one element more than the page size, so no count query
+ * is necessary. The total count is only determined if it is explicitly requested.
+ */
+@Component
+@RequiredArgsConstructor
+public class KeysetPageLoader {
+
+    private static final String CURSOR_SEPARATOR = ":";
+
+    private final ProjectionQueryExecutor projectionQueryExecutor;
+
+    /**
+     * Loads a page of the entities matching the filter condition.
+     *
+     * @param domainClass   the entity class to query
+     * @param condition     the condition the entities must match
+     * @param attributes    the attributes to load, the id and the sort attribute are always loaded
+     * @param sortAttribute the attribute to sort by, must not be nullable
+     * @param sortDirection the sort direction, ties are broken by the id in the same direction
+     * @param pagination    the requested page
+     * @return the selected attributes of the entities in the page and the pagination info
+     * @throws ValidationException if both after and before are specified or if a cursor is invalid
+     */
+    public KeysetPage load(final Class<?> domainClass,
+                           final FilterCondition condition,
+                           final Set<String> attributes,
+                           final String sortAttribute,
+                           final SortDirection sortDirection,
+                           final CursorPagination pagination) {
+        if (pagination.getAfter() != null && pagination.getBefore() != null) {
+            throw new ValidationException("Only one of after and before can be specified");
+        }
+
+        // pages before a cursor are loaded in reverse order and reversed afterward
+        final boolean backward = pagination.getBefore() != null;
+        final boolean ascending = (sortDirection == SortDirection.ASC) != backward;
+        final String cursor = backward ? pagination.getBefore() : pagination.getAfter();
+        final int size = pagination.getSize();
+
+        FilterCondition pageCondition = condition;
+        if (cursor != null) {
+            final String[] position = decodeCursor(cursor);
+            final Object value = convert(position[1],
+                    projectionQueryExecutor.getAttributeType(domainClass, sortAttribute));
+            pageCondition = FilterConditions.after(condition, sortAttribute, value, parseId(position[0]), ascending);
+        }
+
+        final Set<String> selectedAttributes = new HashSet<>(attributes);
+        selectedAttributes.add("id");
+        selectedAttributes.add(sortAttribute);
+
+        final List<Tuple> elements = new ArrayList<>(projectionQueryExecutor.findFirst(domainClass,
+                pageCondition,
+                selectedAttributes,
+                createSort(sortAttribute, ascending),
+                size + 1));
+
+        final boolean hasMore = elements.size() > size;
+        if (hasMore) {
+            elements.remove(size);
+        }
+        if (backward) {
+            Collections.reverse(elements);
+        }
+
+        final CursorPaginationInfo paginationInfo = CursorPaginationInfo.builder()
+                .setSize(size)
+                .setStartCursor(elements.isEmpty() ? null : encodeCursor(elements.get(0), sortAttribute))
+                .setEndCursor(elements.isEmpty() ? null : encodeCursor(elements.get(elements.size() - 1), sortAttribute))
+                // the element of the cursor itself is on the adjacent page
+                .setHasNext(backward || hasMore)
+                .setHasPrevious(backward ? hasMore : cursor != null)
+                .setTotalElements(Boolean.TRUE.equals(pagination.getIncludeTotalCount())
+                        ? (int) projectionQueryExecutor.count(domainClass, condition)
+                        : null)
+                .build();
+
+        return new KeysetPage(elements, paginationInfo);
+    }
+
+    private static Sort createSort(final String sortAttribute, final boolean ascending) {
+        final Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+        if (sortAttribute.equals("id")) {
+            return Sort.by(direction, "id");
+        }
+        return Sort.by(direction, sortAttribute, "id");
+    }
+
+    private static String encodeCursor(final Tuple element, final String sortAttribute) {
+        final String position = element.get("id") + CURSOR_SEPARATOR + element.get(sortAttribute);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(final String cursor) {
+        try {
+            final String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // the id never contains the separator, so the sort value may contain it
+            final String[] parts = position.split(CURSOR_SEPARATOR, 2);
+            if (parts.length != 2) {
+                throw new ValidationException("Invalid cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Converts the sort value of a cursor to the type of the sort attribute.
+     *
+     * @throws ValidationException if the value cannot be converted to the type
+     */
+    private static Object convert(final String value, final Class<?> type) {
+        try {
+            if (type == String.class) {
+                return value;
+            } else if (type == Integer.class || type == int.class) {
+                return Integer.valueOf(value);
+            } else if (type == Boolean.class || type == boolean.class) {
+                return Boolean.valueOf(value);
+            } else if (type == OffsetDateTime.class) {
+                return OffsetDateTime.parse(value);
+            } else if (type == UUID.class) {
+                return UUID.fromString(value);
+            }
+        } catch (RuntimeException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+        throw new IllegalArgumentException("Keyset pagination is not supported for type " + type.getSimpleName());
+    }
+
+    private static UUID parseId(final String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+
+    /**
+     * A page of a cursor based pagination.
+     *
+     * @param elements       the selected attributes of the elements in the page, in sort order
+     * @param paginationInfo the pagination info of the page
+     */
+    public record KeysetPage(List<Tuple> elements, CursorPaginationInfo paginationInfo) {
+    }
+}
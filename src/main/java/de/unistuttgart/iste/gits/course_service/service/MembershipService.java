@@ -1,32 +1,46 @@
 package de.unistuttgart.iste.gits.course_service.service;
 
+import de.unistuttgart.iste.gits.common.util.PaginationUtil;
 import de.unistuttgart.iste.gits.course_service.persistence.entity.*;
-import de.unistuttgart.iste.gits.course_service.persistence.mapper.CourseMapper;
 import de.unistuttgart.iste.gits.course_service.persistence.mapper.MembershipMapper;
 import de.unistuttgart.iste.gits.course_service.persistence.repository.CourseMembershipRepository;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.CourseMembershipRepositoryCustom;
 import de.unistuttgart.iste.gits.course_service.persistence.repository.CourseRepository;
 import de.unistuttgart.iste.gits.generated.dto.*;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
-import java.util.List;
-import java.util.UUID;
-import java.util.function.Predicate;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class MembershipService {
 
+    /**
+     * Number of memberships that are written with one statement by {@link #importMemberships(UUID, List)}.
+     */
+    static final int IMPORT_BATCH_SIZE = 1000;
+
+    /**
+     * Maximum number of memberships imported by one call of {@link #importMemberships(UUID, List)}. The ids of the
+     * imported users are kept in memory to detect duplicates, so the memory of an import grows with its size.
+     */
+    static final int MAX_IMPORT_SIZE = 10_000;
+
     private final CourseMembershipRepository courseMembershipRepository;
 
     private final CourseRepository courseRepository;
 
     private final MembershipMapper membershipMapper;
 
-    private final CourseMapper courseMapper;
-
     /**
      * Returns all memberships of a user
      *
@@ -37,19 +51,32 @@ public class MembershipService {
      *                           If this field is null, all courses are returned.
      * @return List of memberships
      */
+    @Transactional(readOnly = true)
     public List<CourseMembership> getAllMembershipByUserId(final UUID userId, final Boolean availabilityFilter) {
-        return courseMembershipRepository.findByUserId(userId)
+        return findMembershipsByUserId(userId, availabilityFilter)
                 .stream()
                 .map(membershipMapper::entityToDto)
-                .filter(byAvailability(availabilityFilter))
                 .toList();
     }
 
+    private List<CourseMembershipEntity> findMembershipsByUserId(final UUID userId, final Boolean availabilityFilter) {
+        if (availabilityFilter == null) {
+            // no filter
+            return courseMembershipRepository.findByUserId(userId);
+        }
+
+        final OffsetDateTime now = OffsetDateTime.now();
+        return availabilityFilter
+                ? courseMembershipRepository.findAvailableByUserId(userId, now)
+                : courseMembershipRepository.findUnavailableByUserId(userId, now);
+    }
+
     /**
      * creates a new course membership
      *
      * @return created entity
      */
+    @Transactional
     public CourseMembership createMembership(final CourseMembershipInput inputDto) {
         if (!courseRepository.existsById(inputDto.getCourseId())) {
             throw new EntityNotFoundException("Course with id " + inputDto.getCourseId() + " not found");
@@ -60,12 +87,124 @@ public class MembershipService {
         return membershipMapper.entityToDto(entity);
     }
 
+    /**
+     * Lets a user join a course as a student. In the common case, this is a single insert statement.
+     *
+     * @param userId   the id of the user joining the course
+     * @param courseId the id of the course to join
+     * @return the created membership, or the existing membership unchanged if the user already is a member of the
+     * course, regardless of its role
+     * @throws EntityNotFoundException if the course does not exist
+     */
+    @Transactional
+    public CourseMembership joinCourse(final UUID userId, final UUID courseId) {
+        if (courseMembershipRepository.insertIfCourseExists(userId, courseId, UserRoleInCourse.STUDENT.ordinal()) == 1) {
+            return CourseMembership.builder()
+                    .setUserId(userId)
+                    .setCourseId(courseId)
+                    .setRole(UserRoleInCourse.STUDENT)
+                    .build();
+        }
+
+        // nothing was inserted, either the user already is a member or the course does not exist
+        return courseMembershipRepository.findById(new CourseMembershipPk(userId, courseId))
+                .map(membershipMapper::entityToDto)
+                .orElseThrow(() -> new EntityNotFoundException("Course with id " + courseId + " not found"));
+    }
+
+    /**
+     * Imports the memberships of users in a course. The course is checked once, the memberships are created,
+     * or updated if the user is already a member of the course, with one statement per batch of
+     * {@link #IMPORT_BATCH_SIZE} rows.
+     *
+     * @param courseId    the id of the course
+     * @param memberships the users and their roles, a user that occurs more than once is only imported at the
+     *                    first occurrence, the other rows are reported as errors
+     * @return the number of created, updated and unchanged memberships and the rows that were not imported
+     * @throws EntityNotFoundException if the course does not exist
+     * @throws ValidationException     if more than {@link #MAX_IMPORT_SIZE} memberships are imported or a row has
+     *                                 no user id or role, the message contains the index of the row
+     */
+    @Transactional
+    public MembershipImportResult importMemberships(final UUID courseId,
+                                                    final List<MembershipImportInput> memberships) {
+        validateImportInputs(memberships);
+        if (!courseRepository.existsById(courseId)) {
+            throw new EntityNotFoundException("Course with id " + courseId + " not found");
+        }
+
+        final Set<UUID> importedUserIds = new HashSet<>();
+        final List<MembershipImportError> errors = new ArrayList<>();
+        final List<UUID> batchUserIds = new ArrayList<>(IMPORT_BATCH_SIZE);
+        final List<UserRoleInCourse> batchRoles = new ArrayList<>(IMPORT_BATCH_SIZE);
+        int created = 0;
+        int updated = 0;
+
+        for (int i = 0; i < memberships.size(); i++) {
+            final MembershipImportInput membership = memberships.get(i);
+            if (!importedUserIds.add(membership.getUserId())) {
+                errors.add(new MembershipImportError(i, membership.getUserId(), "User is imported more than once"));
+                continue;
+            }
+
+            batchUserIds.add(membership.getUserId());
+            batchRoles.add(membership.getRole());
+            if (batchUserIds.size() == IMPORT_BATCH_SIZE) {
+                final CourseMembershipRepositoryCustom.UpsertResult result = upsertBatch(courseId, batchUserIds, batchRoles);
+                created += result.created();
+                updated += result.updated();
+            }
+        }
+        if (!batchUserIds.isEmpty()) {
+            final CourseMembershipRepositoryCustom.UpsertResult result = upsertBatch(courseId, batchUserIds, batchRoles);
+            created += result.created();
+            updated += result.updated();
+        }
+
+        return MembershipImportResult.builder()
+                .setCreated(created)
+                .setUpdated(updated)
+                .setUnchanged(importedUserIds.size() - created - updated)
+                .setErrors(errors)
+                .build();
+    }
+
+    /**
+     * Validates all rows of an import before any of them is written.
+     */
+    private static void validateImportInputs(final List<MembershipImportInput> memberships) {
+        if (memberships.size() > MAX_IMPORT_SIZE) {
+            throw new ValidationException("Cannot import " + memberships.size() + " memberships at once, at most "
+                                          + MAX_IMPORT_SIZE + " are allowed");
+        }
+        for (int i = 0; i < memberships.size(); i++) {
+            final MembershipImportInput membership = memberships.get(i);
+            if (membership.getUserId() == null) {
+                throw new ValidationException("Invalid input at index " + i + ": User id must not be null");
+            }
+            if (membership.getRole() == null) {
+                throw new ValidationException("Invalid input at index " + i + ": Role must not be null");
+            }
+        }
+    }
+
+    private CourseMembershipRepositoryCustom.UpsertResult upsertBatch(final UUID courseId,
+                                                                      final List<UUID> userIds,
+                                                                      final List<UserRoleInCourse> roles) {
+        final CourseMembershipRepositoryCustom.UpsertResult result =
+                courseMembershipRepository.upsertMemberships(courseId, userIds, roles);
+        userIds.clear();
+        roles.clear();
+        return result;
+    }
+
     /**
      * Updates the role of a user in a course
      *
      * @param inputDto contains user ID, course ID, and course role
      * @return updated entity
      */
+    @Transactional
     public CourseMembership updateMembershipRole(final CourseMembershipInput inputDto) {
 
         //make sure entity exists in database
@@ -80,6 +219,7 @@ public class MembershipService {
      *
      * @return deleted entity
      */
+    @Transactional
     public CourseMembership deleteMembership(final UUID userId, final UUID courseId) {
         final CourseMembershipPk membershipPk = new CourseMembershipPk(userId, courseId);
 
@@ -90,58 +230,60 @@ public class MembershipService {
     }
 
     /**
-     * removes all memberships for a given course ID from the database
+     * removes all memberships for a given course ID from the database with a single statement
      *
      * @param courseId valid course ID
      */
+    @Transactional
     public void deleteMembershipByCourseId(final UUID courseId) {
-
-        final List<CourseMembershipEntity> memberships = courseMembershipRepository.findCourseMembershipEntitiesByCourseId(courseId);
-
-        if (memberships != null && !memberships.isEmpty()) {
-            courseMembershipRepository.deleteAll(memberships);
-        }
+        courseMembershipRepository.deleteAllByCourseIdInBulk(courseId);
     }
 
     /**
-     * Returns all memberships of a course
+     * Returns the memberships of multiple courses. Keys with identical arguments are answered together
+     * with a single query, so the number of queries does not depend on the number of courses.
      *
-     * @param courseId ID of the course
-     * @return List of memberships
+     * @param keys the keys identifying the course and the arguments of the memberships field
+     * @return the memberships for each of the given keys, ordered by user id
      */
-    public List<CourseMembership> getMembershipsOfCourse(final UUID courseId) {
-        return courseMembershipRepository.findCourseMembershipEntitiesByCourseId(courseId)
-                .stream()
-                .map(membershipMapper::entityToDto)
-                .toList();
-    }
+    @Transactional(readOnly = true)
+    public Map<CourseMembershipsKey, List<CourseMembership>> getMembershipsOfCourses(
+            final Collection<CourseMembershipsKey> keys) {
+        final Map<MembershipQueryArguments, List<UUID>> courseIdsByArguments = keys.stream()
+                .collect(Collectors.groupingBy(CourseMembershipsKey::arguments,
+                        LinkedHashMap::new,
+                        Collectors.mapping(CourseMembershipsKey::courseId, Collectors.toList())));
 
-    private Predicate<? super CourseMembership> byAvailability(final Boolean availableCoursesFilter) {
-        return membership -> {
-            if (availableCoursesFilter == null) {
-                // no filter
-                return true;
+        final Map<CourseMembershipsKey, List<CourseMembership>> result = new HashMap<>();
+        courseIdsByArguments.forEach((arguments, courseIds) -> {
+            final Map<UUID, List<CourseMembership>> membershipsByCourseId = new HashMap<>();
+            // courses without memberships must be contained in the result as well
+            for (final UUID courseId : courseIds) {
+                membershipsByCourseId.put(courseId, new ArrayList<>());
             }
-            return availableCoursesFilter == isAvailable(membership);
-        };
+            for (final CourseMembershipEntity membership : findMembershipsOfCourses(courseIds, arguments)) {
+                membershipsByCourseId.get(membership.getCourseId()).add(membershipMapper.entityToDto(membership));
+            }
+            membershipsByCourseId.forEach((courseId, memberships) ->
+                    result.put(new CourseMembershipsKey(courseId, arguments), memberships));
+        });
+        return result;
     }
 
-    private boolean isAvailable(final CourseMembership membership) {
-        final Course course = getCourseById(membership.getCourseId());
-        if (!course.getPublished()) {
-            // course is not published
-            return false;
+    private List<CourseMembershipEntity> findMembershipsOfCourses(final List<UUID> courseIds,
+                                                                  final MembershipQueryArguments arguments) {
+        final Pageable pageRequest = PaginationUtil.createPageable(arguments.pagination(), Sort.by("userId"));
+        if (pageRequest.isPaged()) {
+            return courseMembershipRepository.findPageOfMembershipsPerCourse(courseIds,
+                    arguments.role(),
+                    pageRequest.getOffset(),
+                    pageRequest.getPageSize());
         }
-
-        final OffsetDateTime now = OffsetDateTime.now();
-        final OffsetDateTime startDate = course.getStartDate();
-        final OffsetDateTime endDate = course.getEndDate();
-        return startDate.isBefore(now) && endDate.isAfter(now);
-    }
-
-    private Course getCourseById(final UUID courseId) {
-        final CourseEntity entity = courseRepository.getReferenceById(courseId);
-        return courseMapper.entityToDto(entity);
+        if (arguments.role() != null) {
+            return courseMembershipRepository.findByCourseIdInAndRoleOrderByCourseIdAscUserIdAsc(courseIds,
+                    arguments.role());
+        }
+        return courseMembershipRepository.findByCourseIdInOrderByCourseIdAscUserIdAsc(courseIds);
     }
 
     /**
@@ -157,4 +299,16 @@ public class MembershipService {
                                                                + membershipPk.getCourseId()
                                                                + " not found"));
     }
+
+    /**
+     * Identifies the memberships field of a single course together with the arguments of the field.
+     */
+    public record CourseMembershipsKey(UUID courseId, MembershipQueryArguments arguments) {
+    }
+
+    /**
+     * The role filter and pagination arguments of the memberships field of a course.
+     */
+    public record MembershipQueryArguments(@Nullable UserRoleInCourse role, @Nullable Pagination pagination) {
+    }
 }
@@ -0,0 +1,200 @@
+package de.unistuttgart.iste.gits.course_service.service;
+
+import de.unistuttgart.iste.gits.common.dapr.TopicPublisher;
+import de.unistuttgart.iste.gits.common.event.CrudOperation;
+import de.unistuttgart.iste.gits.course_service.config.SynchronousTopicPublisher;
+import de.unistuttgart.iste.gits.course_service.persistence.entity.OutboxEventEntity;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the events of the {@link ChangeEventOutbox} in the background.
+ * <p>
+ * The due events are loaded in batches, in the order they were written. Events are only due once they are older
+ * than the coalescing window, so that events caused by a burst of mutations end up in the same batch.
+ * Within a batch, duplicate events of the same entity and operation are collapsed and all chapter events with
+ * the same operation are published as one message. Events that cannot be published are retried with an
+ * exponential backoff. This requires the {@link TopicPublisher} to throw if an event is not published, which the
+ * {@link SynchronousTopicPublisher} does. When the service shuts down, all due events are published regardless of
+ * the window.
+ * <p>
+ * Every batch is processed in its own transaction and the events are locked while they are published,
+ * so the relays of several replicas do not publish the same events.
+ * <p>
+ * The number of pending events and the age of the oldest one are exposed as the {@code outbox.events.pending}
+ * and {@code outbox.lag} metrics.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TopicPublisher topicPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final Duration coalescingWindow;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    private final Counter publishedEvents;
+    private final Counter publishedMessages;
+    private final Counter failedPublications;
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OutboxRelay(final OutboxEventRepository outboxEventRepository,
+                       final TopicPublisher topicPublisher,
+                       final PlatformTransactionManager transactionManager,
+                       final MeterRegistry meterRegistry,
+                       @Value("${outbox.relay.batch-size:100}") final int batchSize,
+                       @Value("${outbox.relay.coalescing-window:PT1S}") final Duration coalescingWindow,
+                       @Value("${outbox.relay.initial-backoff:PT1S}") final Duration initialBackoff,
+                       @Value("${outbox.relay.max-backoff:PT5M}") final Duration maxBackoff) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.topicPublisher = topicPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.coalescingWindow = coalescingWindow;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+
+        this.publishedEvents = Counter.builder("outbox.events.published")
+                .description("Number of published change events")
+                .register(meterRegistry);
+        this.publishedMessages = Counter.builder("outbox.messages.published")
+                .description("Number of published change event messages, each containing one or more events")
+                .register(meterRegistry);
+        this.failedPublications = Counter.builder("outbox.events.failed")
+                .description("Number of failed attempts to publish change events")
+                .register(meterRegistry);
+        Gauge.builder("outbox.events.pending", pendingEvents, AtomicLong::get)
+                .description("Number of change events that have not been published yet")
+                .register(meterRegistry);
+        TimeGauge.builder("outbox.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Age of the oldest change event that has not been published yet")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publishes all events that are older than the coalescing window, batch by batch,
+     * and updates the metrics afterward.
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.interval:PT0.5S}")
+    public void relay() {
+        relayAll(coalescingWindow);
+    }
+
+    /**
+     * Publishes all due events when the service shuts down, without waiting for the coalescing window.
+     * Events that are still waiting for a retry remain in the outbox and are published by the next relay to start.
+     */
+    @PreDestroy
+    public void flush() {
+        relayAll(Duration.ZERO);
+    }
+
+    private void relayAll(final Duration window) {
+        int loaded;
+        do {
+            loaded = transactionTemplate.execute(status -> relayBatch(OffsetDateTime.now(), window));
+        } while (loaded == batchSize);
+
+        updateMetrics(OffsetDateTime.now());
+    }
+
+    /**
+     * Publishes one batch of due events. Published events are deleted, the others are scheduled for a retry.
+     *
+     * @param now    the current time
+     * @param window only events created before {@code now - window} are published, retries are not delayed by it
+     * @return the number of loaded events
+     */
+    int relayBatch(final OffsetDateTime now, final Duration window) {
+        final List<OutboxEventEntity> events =
+                outboxEventRepository.findDueForUpdate(now, now.minus(window), batchSize);
+        final List<Long> publishedIds = new ArrayList<>(events.size());
+
+        for (final List<OutboxEventEntity> message : coalesce(events)) {
+            try {
+                publish(message);
+                publishedMessages.increment();
+                message.forEach(event -> publishedIds.add(event.getId()));
+            } catch (final RuntimeException e) {
+                log.warn("Failed to publish {} change event(s), retrying later", message.size(), e);
+                failedPublications.increment();
+                message.forEach(event -> scheduleRetry(event, now));
+            }
+        }
+
+        if (!publishedIds.isEmpty()) {
+            outboxEventRepository.deleteAllByIdInBatch(publishedIds);
+            publishedEvents.increment(publishedIds.size());
+        }
+
+        return events.size();
+    }
+
+    /**
+     * Collapses the events into the messages to publish, in the order of their first event. All chapter events with
+     * the same operation form one message, as chapter change events contain a list of chapter ids. Course change
+     * events contain a single course id, so only the events of the same course and operation form one message.
+     */
+    private static Collection<List<OutboxEventEntity>> coalesce(final List<OutboxEventEntity> events) {
+        final Map<MessageKey, List<OutboxEventEntity>> messages = new LinkedHashMap<>();
+
+        for (final OutboxEventEntity event : events) {
+            final MessageKey key = new MessageKey(event.getType(), event.getOperation(),
+                    event.getType() == OutboxEventEntity.Type.COURSE_CHANGE ? event.getEntityId() : null);
+            messages.computeIfAbsent(key, k -> new ArrayList<>()).add(event);
+        }
+
+        return messages.values();
+    }
+
+    private void publish(final List<OutboxEventEntity> message) {
+        final OutboxEventEntity first = message.get(0);
+        switch (first.getType()) {
+            case COURSE_CHANGE -> topicPublisher.notifyCourseChanges(first.getEntityId(), first.getOperation());
+            case CHAPTER_CHANGE -> topicPublisher.notifyChapterChanges(
+                    message.stream().map(OutboxEventEntity::getEntityId).distinct().toList(),
+                    first.getOperation());
+        }
+    }
+
+    private void scheduleRetry(final OutboxEventEntity event, final OffsetDateTime now) {
+        event.setAttempts(event.getAttempts() + 1);
+        // the backoff doubles with every failed attempt, up to the maximum backoff
+        final Duration backoff = initialBackoff.multipliedBy(1L << Math.min(event.getAttempts() - 1, 30));
+        event.setNextAttemptAt(now.plus(backoff.compareTo(maxBackoff) < 0 ? backoff : maxBackoff));
+    }
+
+    private void updateMetrics(final OffsetDateTime now) {
+        pendingEvents.set(outboxEventRepository.count());
+
+        final OffsetDateTime oldestCreatedAt = outboxEventRepository.findOldestCreatedAt();
+        lagMillis.set(oldestCreatedAt == null ? 0 : Duration.between(oldestCreatedAt, now).toMillis());
+    }
+
+    private record MessageKey(OutboxEventEntity.Type type, CrudOperation operation, @Nullable UUID courseId) {
+    }
+}
@@ -0,0 +1,43 @@
+package de.unistuttgart.iste.gits.course_service.service;
+
+import de.unistuttgart.iste.gits.generated.dto.PaginationInfo;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Creates pagination info for slices, i.e. pages for which the total number of elements was not counted.
+ */
+class SlicePaginationUtil {
+
+    private SlicePaginationUtil() {
+        // Utility class
+    }
+
+    /**
+     * Calculates a lower bound of the total number of elements: the elements up to and including the slice
+     * plus one if there is a next slice.
+     *
+     * @param slice the slice
+     * @return the lower bound of the total number of elements
+     */
+    static long lowerBoundOfTotalElements(final Slice<?> slice) {
+        return slice.getPageable().getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+    }
+
+    /**
+     * Creates the pagination info of a slice.
+     *
+     * @param slice         the slice
+     * @param totalElements the (estimated) total number of elements, must be at least the lower bound
+     * @return the pagination info
+     */
+    static PaginationInfo createPaginationInfo(final Slice<?> slice, final long totalElements) {
+        final int size = slice.getSize();
+        return PaginationInfo.builder()
+                .setPage(slice.getNumber())
+                .setSize(size)
+                .setTotalElements((int) totalElements)
+                .setTotalPages((int) ((totalElements + size - 1) / size))
+                .setHasNext(slice.hasNext())
+                .build();
+    }
+}
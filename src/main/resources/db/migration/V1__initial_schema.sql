@@ -0,0 +1,39 @@
+-- Schema as previously generated by Hibernate from the entities.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate), so this script only runs
+-- on empty databases.
+
+CREATE TABLE IF NOT EXISTS course
+(
+    id            uuid                        NOT NULL,
+    title         varchar(255)                NOT NULL,
+    description   varchar(3000)               NOT NULL,
+    start_date    timestamp(6) with time zone NOT NULL,
+    end_date      timestamp(6) with time zone NOT NULL,
+    published     boolean                     NOT NULL,
+    start_year    integer,
+    year_division varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS chapter
+(
+    id                   uuid                        NOT NULL,
+    title                varchar(255)                NOT NULL,
+    description          varchar(3000)               NOT NULL,
+    number               integer                     NOT NULL,
+    start_date           timestamp(6) with time zone NOT NULL,
+    end_date             timestamp(6) with time zone NOT NULL,
+    suggested_start_date timestamp(6) with time zone,
+    suggested_end_date   timestamp(6) with time zone,
+    course_id            uuid                        NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS course_membership
+(
+    user_id     uuid NOT NULL,
+    course_id   uuid NOT NULL,
+    -- ordinal of UserRoleInCourse
+    course_role smallint,
+    PRIMARY KEY (user_id, course_id)
+);
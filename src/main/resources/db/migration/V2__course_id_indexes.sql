@@ -0,0 +1,7 @@
+-- Memberships and chapters are mostly looked up by their course.
+
+-- the primary key of course_membership starts with user_id and cannot be used to look up the memberships of a course
+CREATE INDEX IF NOT EXISTS course_membership_course_id_idx ON course_membership (course_id);
+
+-- also used for lookups by course_id only, and returns the chapters of a course in order of their number
+CREATE INDEX IF NOT EXISTS chapter_course_id_number_idx ON chapter (course_id, number);
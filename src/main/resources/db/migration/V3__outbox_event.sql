@@ -0,0 +1,19 @@
+-- Change events are written to the outbox in the transaction of the mutation and published by the relay afterward.
+-- The type and the operation are stored by name, so that pending events keep their meaning if the enums change.
+
+-- the ids are taken from a sequence in blocks of 50, see OutboxEventEntity, so that Hibernate can batch the inserts
+CREATE SEQUENCE IF NOT EXISTS outbox_event_id_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS outbox_event
+(
+    id              bigint PRIMARY KEY DEFAULT nextval('outbox_event_id_seq'),
+    type            varchar(32) NOT NULL,
+    entity_id       uuid        NOT NULL,
+    operation       varchar(32) NOT NULL,
+    created_at      timestamptz NOT NULL,
+    attempts        integer     NOT NULL,
+    next_attempt_at timestamptz NOT NULL
+);
+
+-- the relay polls the events that are due in the order they were written
+CREATE INDEX IF NOT EXISTS outbox_event_next_attempt_at_idx ON outbox_event (next_attempt_at, id);
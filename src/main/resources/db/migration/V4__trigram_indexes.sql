@@ -0,0 +1,11 @@
+-- Substring filters on titles and descriptions (StringFilter.contains) are translated to lower(column) LIKE '%value%',
+-- see FilterConditions. Without these indexes, they require a sequential scan.
+
+-- pg_trgm is a trusted extension since PostgreSQL 13, it can be created by the owner of the database
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS course_title_trgm_idx ON course USING gin (lower(title) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS course_description_trgm_idx ON course USING gin (lower(description) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS chapter_title_trgm_idx ON chapter USING gin (lower(title) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS chapter_description_trgm_idx ON chapter USING gin (lower(description) gin_trgm_ops);
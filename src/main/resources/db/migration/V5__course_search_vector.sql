@@ -0,0 +1,97 @@
+-- Full-text search of courses (searchCourses). The search vector of a course is stored in the course, it contains
+-- the title (weight A), the description (weight B) and the titles of the chapters of the course (weight C).
+-- It is not mapped by the course entity, the triggers below keep it up to date.
+
+ALTER TABLE course ADD COLUMN IF NOT EXISTS search_vector tsvector;
+
+CREATE OR REPLACE FUNCTION course_search_vector(course_id uuid, title text, description text) RETURNS tsvector AS
+$$
+SELECT setweight(to_tsvector('english', coalesce(title, '')), 'A')
+           || setweight(to_tsvector('english', coalesce(description, '')), 'B')
+           || setweight(to_tsvector('english', coalesce((SELECT string_agg(chapter.title, ' ')
+                                                         FROM chapter
+                                                         WHERE chapter.course_id = $1), '')), 'C')
+$$ LANGUAGE sql STABLE;
+
+CREATE OR REPLACE FUNCTION course_search_vector_trigger() RETURNS trigger AS
+$$
+BEGIN
+    NEW.search_vector := course_search_vector(NEW.id, NEW.title, NEW.description);
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+-- the search vector is only recomputed if it changes, not e.g. when only the dates are updated
+DROP TRIGGER IF EXISTS course_search_vector_insert ON course;
+CREATE TRIGGER course_search_vector_insert
+    BEFORE INSERT
+    ON course
+    FOR EACH ROW
+EXECUTE PROCEDURE course_search_vector_trigger();
+
+DROP TRIGGER IF EXISTS course_search_vector_update ON course;
+CREATE TRIGGER course_search_vector_update
+    BEFORE UPDATE
+    ON course
+    FOR EACH ROW
+    WHEN (OLD.title IS DISTINCT FROM NEW.title OR OLD.description IS DISTINCT FROM NEW.description)
+EXECUTE PROCEDURE course_search_vector_trigger();
+
+-- the chapter triggers are statement-level triggers, so that inserting, updating or deleting many chapters, e.g. with
+-- createChapters or deleteCourse, recomputes the search vector of each affected course once instead of once per
+-- chapter; courses that do not exist (anymore) are not matched by the update
+CREATE OR REPLACE FUNCTION chapter_course_search_vector_trigger() RETURNS trigger AS
+$$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        UPDATE course
+        SET search_vector = course_search_vector(id, title, description)
+        WHERE id IN (SELECT course_id FROM new_chapter);
+    ELSIF TG_OP = 'DELETE' THEN
+        UPDATE course
+        SET search_vector = course_search_vector(id, title, description)
+        WHERE id IN (SELECT course_id FROM old_chapter);
+    ELSE
+        -- statement-level triggers cannot have a WHEN condition, only chapters with a new title or course matter
+        UPDATE course
+        SET search_vector = course_search_vector(id, title, description)
+        WHERE id IN (SELECT changed.course_id
+                     FROM old_chapter
+                              JOIN new_chapter USING (id)
+                              CROSS JOIN LATERAL (VALUES (old_chapter.course_id),
+                                                         (new_chapter.course_id)) changed (course_id)
+                     WHERE old_chapter.title IS DISTINCT FROM new_chapter.title
+                        OR old_chapter.course_id IS DISTINCT FROM new_chapter.course_id);
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+-- a trigger with transition tables can only have a single event
+DROP TRIGGER IF EXISTS chapter_course_search_vector_insert ON chapter;
+CREATE TRIGGER chapter_course_search_vector_insert
+    AFTER INSERT
+    ON chapter
+    REFERENCING NEW TABLE AS new_chapter
+    FOR EACH STATEMENT
+EXECUTE PROCEDURE chapter_course_search_vector_trigger();
+
+DROP TRIGGER IF EXISTS chapter_course_search_vector_delete ON chapter;
+CREATE TRIGGER chapter_course_search_vector_delete
+    AFTER DELETE
+    ON chapter
+    REFERENCING OLD TABLE AS old_chapter
+    FOR EACH STATEMENT
+EXECUTE PROCEDURE chapter_course_search_vector_trigger();
+
+DROP TRIGGER IF EXISTS chapter_course_search_vector_update ON chapter;
+CREATE TRIGGER chapter_course_search_vector_update
+    AFTER UPDATE
+    ON chapter
+    REFERENCING OLD TABLE AS old_chapter NEW TABLE AS new_chapter
+    FOR EACH STATEMENT
+EXECUTE PROCEDURE chapter_course_search_vector_trigger();
+
+UPDATE course SET search_vector = course_search_vector(id, title, description);
+
+CREATE INDEX IF NOT EXISTS course_search_vector_idx ON course USING gin (search_vector);
@@ -4,6 +4,7 @@ import de.unistuttgart.iste.gits.common.testutil.GraphQlApiTest;
 import de.unistuttgart.iste.gits.common.user_handling.LoggedInUser;
 import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseEntity;
 import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseMembershipEntity;
+import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseMembershipPk;
 import de.unistuttgart.iste.gits.course_service.persistence.repository.CourseMembershipRepository;
 import de.unistuttgart.iste.gits.course_service.persistence.repository.CourseRepository;
 import de.unistuttgart.iste.gits.generated.dto.CourseMembership;
@@ -18,6 +19,8 @@ import static de.unistuttgart.iste.gits.common.testutil.HeaderUtils.addCurrentUs
 import static de.unistuttgart.iste.gits.common.testutil.TestUsers.userWithMembershipInCourseWithId;
 import static de.unistuttgart.iste.gits.course_service.test_utils.TestUtils.dummyCourseBuilder;
 import static de.unistuttgart.iste.gits.course_service.test_utils.TestUtils.saveCourseMembershipsOfUserToRepository;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 
 @GraphQlApiTest
 class MutationCourseMembershipTest {
@@ -272,4 +275,62 @@ class MutationCourseMembershipTest {
                 .isEqualTo(expectedDto);
     }
 
+    /**
+     * Given a course with two members
+     * When memberships are imported for the two members, a new user and the new user again
+     * Then the new user is added, the changed role is updated, the unchanged membership is counted
+     * and the duplicate row is reported as error
+     */
+    @Test
+    void importMembershipsTest(HttpGraphQlTester tester) {
+        final CourseEntity course = courseRepository.save(dummyCourseBuilder().build());
+
+        final LoggedInUser adminUser = userWithMembershipInCourseWithId(course.getId(),
+                LoggedInUser.UserRoleInCourse.ADMINISTRATOR);
+        tester = addCurrentUserHeader(tester, adminUser);
+
+        final UUID student = UUID.randomUUID();
+        final UUID tutor = UUID.randomUUID();
+        final UUID newUser = UUID.randomUUID();
+        courseMembershipRepository.save(new CourseMembershipEntity(student, course.getId(), UserRoleInCourse.STUDENT));
+        courseMembershipRepository.save(new CourseMembershipEntity(tutor, course.getId(), UserRoleInCourse.TUTOR));
+
+        final String query = """
+                mutation($courseId: UUID!, $student: UUID!, $tutor: UUID!, $newUser: UUID!) {
+                    importMemberships(courseId: $courseId, memberships: [
+                        {userId: $student, role: STUDENT},
+                        {userId: $tutor, role: ADMINISTRATOR},
+                        {userId: $newUser, role: STUDENT},
+                        {userId: $newUser, role: TUTOR}
+                    ]) {
+                        created
+                        updated
+                        unchanged
+                        errors {
+                            index
+                            userId
+                        }
+                    }
+                }
+                """;
+
+        tester.document(query)
+                .variable("courseId", course.getId())
+                .variable("student", student)
+                .variable("tutor", tutor)
+                .variable("newUser", newUser)
+                .execute()
+                .path("importMemberships.created").entity(Integer.class).isEqualTo(1)
+                .path("importMemberships.updated").entity(Integer.class).isEqualTo(1)
+                .path("importMemberships.unchanged").entity(Integer.class).isEqualTo(1)
+                .path("importMemberships.errors[*].index").entityList(Integer.class).containsExactly(3)
+                .path("importMemberships.errors[*].userId").entityList(UUID.class).containsExactly(newUser);
+
+        assertThat(courseMembershipRepository.findById(new CourseMembershipPk(tutor, course.getId()))
+                .map(CourseMembershipEntity::getRole)
+                .orElseThrow(), is(UserRoleInCourse.ADMINISTRATOR));
+        assertThat(courseMembershipRepository.findById(new CourseMembershipPk(newUser, course.getId()))
+                .map(CourseMembershipEntity::getRole)
+                .orElseThrow(), is(UserRoleInCourse.STUDENT));
+    }
 }
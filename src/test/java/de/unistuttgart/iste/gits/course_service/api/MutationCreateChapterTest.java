@@ -7,6 +7,9 @@ import de.unistuttgart.iste.gits.course_service.persistence.entity.ChapterEntity
 import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseEntity;
 import de.unistuttgart.iste.gits.course_service.persistence.repository.*;
 import de.unistuttgart.iste.gits.generated.dto.Chapter;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.test.tester.GraphQlTester;
@@ -19,6 +22,7 @@ import java.util.UUID;
 
 import static de.unistuttgart.iste.gits.common.testutil.HeaderUtils.addCurrentUserHeader;
 import static de.unistuttgart.iste.gits.common.testutil.TestUsers.userWithMembershipInCourseWithId;
+import static de.unistuttgart.iste.gits.course_service.test_utils.TestUtils.dummyCourseBuilder;
 import static de.unistuttgart.iste.gits.course_service.test_utils.TestUtils.saveCourseMembershipsOfUserToRepository;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -33,6 +37,8 @@ class MutationCreateChapterTest {
     private ChapterRepository chapterRepository;
     @Autowired
     private CourseMembershipRepository courseMembershipRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
 
     /**
      * Given a valid CreateChapterInput
@@ -505,4 +511,81 @@ class MutationCreateChapterTest {
                         .toLowerCase().contains("suggested end date must be before end date"));
     }
 
+
+    /**
+     * Given a course and three valid CreateChapterInputs
+     * When the createChapters mutation is executed
+     * Then the chapters are created in a single transaction with one existence check and one batched insert
+     */
+    @Test
+    void testCreateChapters(HttpGraphQlTester tester) {
+        final CourseEntity course = courseRepository.save(dummyCourseBuilder().build());
+
+        final LoggedInUser adminUser = userWithMembershipInCourseWithId(course.getId(),
+                LoggedInUser.UserRoleInCourse.ADMINISTRATOR);
+        tester = addCurrentUserHeader(tester, adminUser);
+
+        final String query = """
+                mutation($courseId: UUID!) {
+                    createChapters(input: [
+                        {courseId: $courseId, title: "Chapter 1", description: "", number: 1,
+                         startDate: "2020-01-01T00:00:00.000Z", endDate: "2021-01-01T00:00:00.000Z"},
+                        {courseId: $courseId, title: "Chapter 2", description: "", number: 2,
+                         startDate: "2020-01-01T00:00:00.000Z", endDate: "2021-01-01T00:00:00.000Z"},
+                        {courseId: $courseId, title: "Chapter 3", description: "", number: 3,
+                         startDate: "2020-01-01T00:00:00.000Z", endDate: "2021-01-01T00:00:00.000Z"}
+                    ]) {
+                        id
+                        title
+                    }
+                }""";
+
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        tester.document(query)
+                .variable("courseId", course.getId())
+                .execute()
+                .path("createChapters[*].title").entityList(String.class)
+                .containsExactly("Chapter 1", "Chapter 2", "Chapter 3");
+
+        assertThat(statistics.getTransactionCount(), is(1L));
+        assertThat(statistics.getPrepareStatementCount(), is(2L));
+        assertThat(chapterRepository.count(), is(3L));
+    }
+
+    /**
+     * Given a course and a list of CreateChapterInputs of which the second one is invalid
+     * When the createChapters mutation is executed
+     * Then an error with the index of the invalid input is returned and no chapter is created
+     */
+    @Test
+    void testCreateChaptersWithInvalidInput(HttpGraphQlTester tester) {
+        final CourseEntity course = courseRepository.save(dummyCourseBuilder().build());
+
+        final LoggedInUser adminUser = userWithMembershipInCourseWithId(course.getId(),
+                LoggedInUser.UserRoleInCourse.ADMINISTRATOR);
+        tester = addCurrentUserHeader(tester, adminUser);
+
+        final String query = """
+                mutation($courseId: UUID!) {
+                    createChapters(input: [
+                        {courseId: $courseId, title: "Chapter 1", description: "", number: 1,
+                         startDate: "2020-01-01T00:00:00.000Z", endDate: "2021-01-01T00:00:00.000Z"},
+                        {courseId: $courseId, title: "Chapter 2", description: "", number: 2,
+                         startDate: "2021-01-01T00:00:00.000Z", endDate: "2020-01-01T00:00:00.000Z"}
+                    ]) {
+                        id
+                    }
+                }""";
+
+        tester.document(query)
+                .variable("courseId", course.getId())
+                .execute()
+                .errors()
+                .expect(responseError -> responseError.getMessage() != null
+                                         && responseError.getMessage().contains("Invalid input at index 1"));
+
+        assertThat(chapterRepository.count(), is(0L));
+    }
 }
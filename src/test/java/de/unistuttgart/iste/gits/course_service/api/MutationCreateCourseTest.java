@@ -5,6 +5,9 @@ import de.unistuttgart.iste.gits.common.user_handling.LoggedInUser;
 import de.unistuttgart.iste.gits.course_service.persistence.repository.ChapterRepository;
 import de.unistuttgart.iste.gits.course_service.persistence.repository.CourseRepository;
 import de.unistuttgart.iste.gits.generated.dto.YearDivision;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.test.tester.GraphQlTester;
@@ -33,9 +36,43 @@ class MutationCreateCourseTest {
     @Autowired
     private ChapterRepository chapterRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @InjectCurrentUserHeader
     private final LoggedInUser user = userWithMembershipsAndRealmRoles(Set.of(COURSE_CREATOR));
 
+    /**
+     * Given a valid CreateCourseInput
+     * When the createCourse mutation is executed
+     * Then the course and the membership of the creator are committed in a single transaction
+     */
+    @Test
+    void testCreateCourseCommitsOnce(final HttpGraphQlTester tester) {
+        final String query = """
+                mutation {
+                    createCourse(
+                        input: {
+                            title: "New Course"
+                            description: "This is a new course"
+                            startDate: "2020-01-01T00:00:00.000Z"
+                            endDate: "2021-01-01T00:00:00.000Z"
+                            published: false
+                        }
+                    ) {
+                        id
+                    }
+                }""";
+
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        tester.document(query).execute().path("createCourse.id").entity(UUID.class);
+
+        assertThat(statistics.getTransactionCount(), is(1L));
+        assertThat(statistics.getSuccessfulTransactionCount(), is(1L));
+    }
+
     /**
      * Given a valid CreateCourseInput
      * When the createCourse mutation is executed
@@ -76,6 +76,9 @@ class MutationDeleteCourseTest {
         assertThat(entities.get(0).getId(), equalTo(initialCourses.get(1).getId()));
         // check that the chapter was deleted
         assertThat(chapterRepository.findAll(), hasSize(0));
+        // check that the memberships of the deleted course were deleted
+        assertThat(courseMembershipRepository.findCourseMembershipEntitiesByCourseId(initialCourses.get(0).getId()),
+                hasSize(0));
     }
 
     /**
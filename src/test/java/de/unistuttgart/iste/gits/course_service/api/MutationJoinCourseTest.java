@@ -13,12 +13,22 @@ import org.springframework.graphql.test.tester.HttpGraphQlTester;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
+import static de.unistuttgart.iste.gits.course_service.test_utils.TestUtils.dummyCourseBuilder;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 
 @GraphQlApiTest
 class MutationJoinCourseTest {
 
+    private static final String JOIN_COURSE_QUERY = """
+            mutation($courseId: UUID!) {
+                joinCourse(courseId: $courseId) {
+                    userId
+                    role
+                }
+            }
+            """;
+
     @Autowired
     private CourseRepository courseRepository;
     @Autowired
@@ -67,4 +77,43 @@ class MutationJoinCourseTest {
         assertThat(membership.getCourseId()).isEqualTo(course.getId());
         assertThat(membership.getRole()).isEqualTo(UserRoleInCourse.STUDENT);
     }
+
+    /**
+     * Given the current user is a tutor of a course
+     * When the user joins the course
+     * Then the existing membership is returned and its role is not changed
+     */
+    @Test
+    void testJoinCourseAlreadyMember(final HttpGraphQlTester tester) {
+        final CourseEntity course = courseRepository.save(dummyCourseBuilder().build());
+        courseMembershipRepository.save(new CourseMembershipEntity(currentUserId, course.getId(), UserRoleInCourse.TUTOR));
+
+        tester.document(JOIN_COURSE_QUERY)
+                .variable("courseId", course.getId())
+                .execute()
+                .path("joinCourse.userId").entity(UUID.class).isEqualTo(currentUserId)
+                .path("joinCourse.role").entity(UserRoleInCourse.class).isEqualTo(UserRoleInCourse.TUTOR);
+
+        assertThat(courseMembershipRepository.findById(new CourseMembershipPk(currentUserId, course.getId()))
+                .map(CourseMembershipEntity::getRole)).contains(UserRoleInCourse.TUTOR);
+    }
+
+    /**
+     * Given a course id of a course that does not exist
+     * When the user joins the course
+     * Then an error is returned and no membership is created
+     */
+    @Test
+    void testJoinCourseNotExisting(final HttpGraphQlTester tester) {
+        final UUID courseId = UUID.randomUUID();
+
+        tester.document(JOIN_COURSE_QUERY)
+                .variable("courseId", courseId)
+                .execute()
+                .errors()
+                .expect(responseError -> responseError.getMessage() != null
+                                         && responseError.getMessage().contains("Course with id " + courseId + " not found"));
+
+        assertThat(courseMembershipRepository.findById(new CourseMembershipPk(currentUserId, courseId))).isEmpty();
+    }
 }
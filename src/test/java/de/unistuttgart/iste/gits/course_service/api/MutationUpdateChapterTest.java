@@ -7,6 +7,9 @@ import de.unistuttgart.iste.gits.course_service.persistence.entity.ChapterEntity
 import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseEntity;
 import de.unistuttgart.iste.gits.course_service.persistence.repository.*;
 import de.unistuttgart.iste.gits.generated.dto.Chapter;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.test.tester.GraphQlTester;
@@ -33,11 +36,13 @@ class MutationUpdateChapterTest {
     private ChapterRepository chapterRepository;
     @Autowired
     private CourseMembershipRepository courseMembershipRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
 
     /**
      * Given a valid UpdateChapterInput
      * When the updateChapter mutation is executed
-     * Then the chapter is updated and returned
+     * Then the chapter is updated and returned, with one query for the course of the chapter and one update
      */
     @Test
     void testUpdateChapter(HttpGraphQlTester tester) {
@@ -88,6 +93,9 @@ class MutationUpdateChapterTest {
                     }
                 }""".formatted(chapterEntity.getId());
 
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
         tester.document(query)
                 .execute()
                 .path("updateChapter")
@@ -100,6 +108,7 @@ class MutationUpdateChapterTest {
                     assertThat(chapter.getNumber(), is(1));
                 });
 
+        assertThat(statistics.getPrepareStatementCount(), is(2L));
         assertThat(chapterRepository.count(), is(1L));
         final ChapterEntity updatedChapter = chapterRepository.findAll().get(0);
         assertThat(updatedChapter.getTitle(), is("New Chapter"));
@@ -0,0 +1,227 @@
+package de.unistuttgart.iste.gits.course_service.api;
+
+import de.unistuttgart.iste.gits.common.testutil.GraphQlApiTest;
+import de.unistuttgart.iste.gits.common.testutil.MockTestPublisherConfiguration;
+import de.unistuttgart.iste.gits.common.user_handling.LoggedInUser;
+import de.unistuttgart.iste.gits.course_service.persistence.entity.ChapterEntity;
+import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseEntity;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.ChapterRepository;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.CourseRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.graphql.test.tester.HttpGraphQlTester;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static de.unistuttgart.iste.gits.common.testutil.HeaderUtils.addCurrentUserHeader;
+import static de.unistuttgart.iste.gits.common.testutil.TestUsers.userWithMembershipInCourseWithId;
+import static de.unistuttgart.iste.gits.common.user_handling.LoggedInUser.UserRoleInCourse.STUDENT;
+import static de.unistuttgart.iste.gits.course_service.test_utils.TestUtils.dummyChapterBuilder;
+import static de.unistuttgart.iste.gits.course_service.test_utils.TestUtils.dummyCourseBuilder;
+
+/**
+ * Tests for the `chapters` field of the course type.
+ */
+@ContextConfiguration(classes = MockTestPublisherConfiguration.class)
+@GraphQlApiTest
+class QueryCourseChaptersTest {
+
+    @Autowired
+    private CourseRepository courseRepository;
+    @Autowired
+    private ChapterRepository chapterRepository;
+
+    /**
+     * Given a course with three chapters
+     * When the chapters of the course are queried with pagination
+     * Then the chapters of the requested page are returned in order of their number
+     * and the pagination information is correct.
+     */
+    @Test
+    void testGetChaptersPaged(HttpGraphQlTester tester) {
+        final CourseEntity course = courseRepository.save(dummyCourseBuilder().build());
+        final List<ChapterEntity> chapters = Stream.of(
+                        dummyChapterBuilder().courseId(course.getId()).number(3).build(),
+                        dummyChapterBuilder().courseId(course.getId()).number(1).build(),
+                        dummyChapterBuilder().courseId(course.getId()).number(2).build())
+                .map(chapterRepository::save)
+                .toList();
+
+        final LoggedInUser currentUser = userWithMembershipInCourseWithId(course.getId(), STUDENT);
+        tester = addCurrentUserHeader(tester, currentUser);
+
+        final String query = """
+                query($courseId: UUID!, $page: Int!) {
+                    coursesByIds(ids: [$courseId]) {
+                        chapters(pagination: {page: $page, size: 2}) {
+                            elements {
+                                id
+                                number
+                            }
+                            pagination {
+                                totalElements
+                                totalPages
+                                page
+                                size
+                                hasNext
+                            }
+                        }
+                    }
+                }""";
+
+        tester.document(query)
+                .variable("courseId", course.getId())
+                .variable("page", 0)
+                .execute()
+                .path("coursesByIds[0].chapters.elements[*].id").entityList(UUID.class)
+                .containsExactly(chapters.get(1).getId(), chapters.get(2).getId())
+                .path("coursesByIds[0].chapters.pagination.totalElements").entity(Integer.class).isEqualTo(3)
+                .path("coursesByIds[0].chapters.pagination.totalPages").entity(Integer.class).isEqualTo(2)
+                .path("coursesByIds[0].chapters.pagination.hasNext").entity(Boolean.class).isEqualTo(true);
+
+        tester.document(query)
+                .variable("courseId", course.getId())
+                .variable("page", 1)
+                .execute()
+                .path("coursesByIds[0].chapters.elements[*].id").entityList(UUID.class)
+                .containsExactly(chapters.get(0).getId())
+                .path("coursesByIds[0].chapters.pagination.totalElements").entity(Integer.class).isEqualTo(3)
+                .path("coursesByIds[0].chapters.pagination.hasNext").entity(Boolean.class).isEqualTo(false);
+    }
+
+    /**
+     * Given a course with three chapters
+     * When the chapters of the course are queried with a filter and without pagination
+     * Then only the matching chapters are returned.
+     */
+    @Test
+    void testGetChaptersFiltered(HttpGraphQlTester tester) {
+        final CourseEntity course = courseRepository.save(dummyCourseBuilder().build());
+        final List<ChapterEntity> chapters = Stream.of(
+                        dummyChapterBuilder().courseId(course.getId()).title("Intro").number(1).build(),
+                        dummyChapterBuilder().courseId(course.getId()).title("Basics").number(2).build(),
+                        dummyChapterBuilder().courseId(course.getId()).title("Advanced").number(3).build())
+                .map(chapterRepository::save)
+                .toList();
+
+        final LoggedInUser currentUser = userWithMembershipInCourseWithId(course.getId(), STUDENT);
+        tester = addCurrentUserHeader(tester, currentUser);
+
+        final String query = """
+                query($courseId: UUID!) {
+                    coursesByIds(ids: [$courseId]) {
+                        chapters(filter: {title: {contains: "a"}}) {
+                            elements {
+                                id
+                            }
+                            pagination {
+                                totalElements
+                            }
+                        }
+                    }
+                }""";
+
+        tester.document(query)
+                .variable("courseId", course.getId())
+                .execute()
+                .path("coursesByIds[0].chapters.elements[*].id").entityList(UUID.class)
+                .containsExactly(chapters.get(1).getId(), chapters.get(2).getId())
+                .path("coursesByIds[0].chapters.pagination.totalElements").entity(Integer.class).isEqualTo(2);
+    }
+
+    /**
+     * Given a course with four chapters, three of them matching a filter
+     * When the chapters of the course are queried with the filter and pagination
+     * Then the requested page of the matching chapters is returned and only the matching chapters are counted.
+     */
+    @Test
+    void testGetChaptersFilteredPaged(HttpGraphQlTester tester) {
+        final CourseEntity course = courseRepository.save(dummyCourseBuilder().build());
+        final List<ChapterEntity> chapters = chapterRepository.saveAll(List.of(
+                dummyChapterBuilder().courseId(course.getId()).title("Basics").number(1).build(),
+                dummyChapterBuilder().courseId(course.getId()).title("Intro").number(2).build(),
+                dummyChapterBuilder().courseId(course.getId()).title("Advanced").number(3).build(),
+                dummyChapterBuilder().courseId(course.getId()).title("Data").number(4).build()));
+
+        final LoggedInUser currentUser = userWithMembershipInCourseWithId(course.getId(), STUDENT);
+        tester = addCurrentUserHeader(tester, currentUser);
+
+        final String query = """
+                query($courseId: UUID!, $page: Int!) {
+                    coursesByIds(ids: [$courseId]) {
+                        chapters(filter: {title: {contains: "a", ignoreCase: true}},
+                                 pagination: {page: $page, size: 2}) {
+                            elements {
+                                id
+                            }
+                            pagination {
+                                totalElements
+                                hasNext
+                            }
+                        }
+                    }
+                }""";
+
+        tester.document(query)
+                .variable("courseId", course.getId())
+                .variable("page", 0)
+                .execute()
+                .path("coursesByIds[0].chapters.elements[*].id").entityList(UUID.class)
+                .containsExactly(chapters.get(0).getId(), chapters.get(2).getId())
+                .path("coursesByIds[0].chapters.pagination.totalElements").entity(Integer.class).isEqualTo(3)
+                .path("coursesByIds[0].chapters.pagination.hasNext").entity(Boolean.class).isEqualTo(true);
+
+        tester.document(query)
+                .variable("courseId", course.getId())
+                .variable("page", 1)
+                .execute()
+                .path("coursesByIds[0].chapters.elements[*].id").entityList(UUID.class)
+                .containsExactly(chapters.get(3).getId())
+                .path("coursesByIds[0].chapters.pagination.totalElements").entity(Integer.class).isEqualTo(3)
+                .path("coursesByIds[0].chapters.pagination.hasNext").entity(Boolean.class).isEqualTo(false);
+    }
+
+    /**
+     * Given a course with two chapters
+     * When only the title of the chapters and the course of the chapters are queried
+     * Then the titles and the course are returned correctly.
+     */
+    @Test
+    void testGetChaptersWithSelectedFieldsOnly(HttpGraphQlTester tester) {
+        final CourseEntity course = courseRepository.save(dummyCourseBuilder().build());
+        Stream.of(
+                        dummyChapterBuilder().courseId(course.getId()).title("Intro").number(1).build(),
+                        dummyChapterBuilder().courseId(course.getId()).title("Basics").number(2).build())
+                .forEach(chapterRepository::save);
+
+        final LoggedInUser currentUser = userWithMembershipInCourseWithId(course.getId(), STUDENT);
+        tester = addCurrentUserHeader(tester, currentUser);
+
+        final String query = """
+                query($courseId: UUID!) {
+                    coursesByIds(ids: [$courseId]) {
+                        title
+                        chapters {
+                            elements {
+                                title
+                                course {
+                                    id
+                                }
+                            }
+                        }
+                    }
+                }""";
+
+        tester.document(query)
+                .variable("courseId", course.getId())
+                .execute()
+                .path("coursesByIds[0].title").entity(String.class).isEqualTo(course.getTitle())
+                .path("coursesByIds[0].chapters.elements[*].title").entityList(String.class)
+                .containsExactly("Intro", "Basics")
+                .path("coursesByIds[0].chapters.elements[*].course.id").entityList(UUID.class)
+                .containsExactly(course.getId(), course.getId());
+    }
+}
@@ -17,6 +17,7 @@ import org.springframework.graphql.test.tester.HttpGraphQlTester;
 
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
 
@@ -24,6 +25,7 @@ import static de.unistuttgart.iste.gits.common.testutil.HeaderUtils.addCurrentUs
 import static de.unistuttgart.iste.gits.common.testutil.TestUsers.userWithMembershipInCourseWithId;
 import static de.unistuttgart.iste.gits.common.user_handling.LoggedInUser.UserRoleInCourse.ADMINISTRATOR;
 import static de.unistuttgart.iste.gits.common.user_handling.LoggedInUser.UserRoleInCourse.STUDENT;
+import static de.unistuttgart.iste.gits.course_service.test_utils.TestUtils.dummyCourseBuilder;
 
 @GraphQlApiTest
 class QueryCourseMembershipsTest {
@@ -77,6 +79,61 @@ class QueryCourseMembershipsTest {
                 .contains(courseMemberships.get(0), courseMemberships.get(1));
     }
 
+    @Test
+    void testMembershipsWithAvailabilityFilter(final GraphQlTester tester) {
+        final UUID userId = UUID.randomUUID();
+        final OffsetDateTime now = OffsetDateTime.now();
+
+        final CourseEntity availableCourse = courseRepository.save(dummyCourseBuilder()
+                .published(true)
+                .startDate(now.minusDays(1))
+                .endDate(now.plusDays(1))
+                .build());
+        final CourseEntity unpublishedCourse = courseRepository.save(dummyCourseBuilder()
+                .published(false)
+                .startDate(now.minusDays(1))
+                .endDate(now.plusDays(1))
+                .build());
+        final CourseEntity endedCourse = courseRepository.save(dummyCourseBuilder()
+                .published(true)
+                .startDate(now.minusDays(2))
+                .endDate(now.minusDays(1))
+                .build());
+
+        for (final CourseEntity course : List.of(availableCourse, unpublishedCourse, endedCourse)) {
+            membershipRepository.save(CourseMembershipEntity.builder()
+                    .userId(userId)
+                    .courseId(course.getId())
+                    .role(UserRoleInCourse.STUDENT)
+                    .build());
+        }
+
+        final String query = """
+                query($userId: UUID!, $availabilityFilter: Boolean) {
+                    _internal_noauth_courseMembershipsByUserId(userId: $userId, availabilityFilter: $availabilityFilter) {
+                        courseId
+                    }
+                }
+                """;
+
+        tester.document(query)
+                .variable("userId", userId)
+                .variable("availabilityFilter", true)
+                .execute()
+                .path("_internal_noauth_courseMembershipsByUserId[*].courseId")
+                .entityList(UUID.class)
+                .containsExactly(availableCourse.getId());
+
+        tester.document(query)
+                .variable("userId", userId)
+                .variable("availabilityFilter", false)
+                .execute()
+                .path("_internal_noauth_courseMembershipsByUserId[*].courseId")
+                .entityList(UUID.class)
+                .hasSize(2)
+                .contains(unpublishedCourse.getId(), endedCourse.getId());
+    }
+
     @Test
     void testMembershipsFieldInCourse(HttpGraphQlTester tester) {
         final CourseEntity course = courseRepository.save(createTestCourse());
@@ -113,6 +170,58 @@ class QueryCourseMembershipsTest {
                 .path("coursesByIds[0].memberships[0].role").entity(UserRoleInCourse.class).isEqualTo(UserRoleInCourse.ADMINISTRATOR);
     }
 
+    /**
+     * Given a course with an administrator and three students
+     * When the memberships of the course are queried with a role filter and pagination
+     * Then only the requested page of the memberships with the role is returned, ordered by user id
+     */
+    @Test
+    void testMembershipsFieldInCourseWithRoleAndPagination(HttpGraphQlTester tester) {
+        final CourseEntity course = courseRepository.save(createTestCourse());
+
+        final LoggedInUser currentUser = userWithMembershipInCourseWithId(course.getId(), ADMINISTRATOR);
+
+        tester = addCurrentUserHeader(tester, currentUser);
+
+        membershipRepository.save(CourseMembershipEntity.builder()
+                .userId(currentUser.getId())
+                .courseId(course.getId())
+                .role(UserRoleInCourse.ADMINISTRATOR)
+                .build());
+        final List<UUID> studentIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final UUID studentId = UUID.randomUUID();
+            studentIds.add(studentId);
+            membershipRepository.save(CourseMembershipEntity.builder()
+                    .userId(studentId)
+                    .courseId(course.getId())
+                    .role(UserRoleInCourse.STUDENT)
+                    .build());
+        }
+        // the database orders uuids like their string representation
+        studentIds.sort(Comparator.comparing(UUID::toString));
+
+        final String query =
+                """
+                        query($courseId: UUID!) {
+                            coursesByIds(ids: [$courseId]) {
+                                memberships(role: STUDENT, pagination: {page: 0, size: 2}) {
+                                    userId
+                                    role
+                                }
+                            }
+                        }
+                        """;
+
+        tester.document(query)
+                .variable("courseId", course.getId())
+                .execute()
+                .path("coursesByIds[0].memberships[*].userId").entityList(UUID.class)
+                .containsExactly(studentIds.get(0), studentIds.get(1))
+                .path("coursesByIds[0].memberships[*].role").entityList(UserRoleInCourse.class)
+                .containsExactly(UserRoleInCourse.STUDENT, UserRoleInCourse.STUDENT);
+    }
+
     @Test
     void testMembershipsFieldInCourseNoPermission(HttpGraphQlTester tester) {
         final CourseEntity course = courseRepository.save(createTestCourse());
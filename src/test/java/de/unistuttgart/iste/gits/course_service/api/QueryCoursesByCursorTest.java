@@ -0,0 +1,220 @@
+package de.unistuttgart.iste.gits.course_service.api;
+
+import de.unistuttgart.iste.gits.common.testutil.GraphQlApiTest;
+import de.unistuttgart.iste.gits.common.testutil.MockTestPublisherConfiguration;
+import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseEntity;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.CourseRepository;
+import de.unistuttgart.iste.gits.course_service.service.CourseService;
+import de.unistuttgart.iste.gits.generated.dto.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static de.unistuttgart.iste.gits.course_service.test_utils.TestUtils.dummyCourseBuilder;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests that the coursesByCursor query works correctly.
+ */
+@ContextConfiguration(classes = MockTestPublisherConfiguration.class)
+@GraphQlApiTest
+class QueryCoursesByCursorTest {
+
+    private static final String QUERY = """
+            query($after: String, $before: String) {
+                coursesByCursor(sortBy: "title", sortDirection: DESC,
+                                pagination: {size: 2, after: $after, before: $before, includeTotalCount: true}) {
+                    elements {
+                        id
+                    }
+                    pagination {
+                        startCursor
+                        endCursor
+                        hasNext
+                        hasPrevious
+                        totalElements
+                    }
+                }
+            }""";
+
+    private static final String FILTERED_QUERY = """
+            query($filter: CourseFilter, $after: String) {
+                coursesByCursor(filter: $filter, sortBy: "title",
+                                pagination: {size: 2, after: $after, includeTotalCount: true}) {
+                    elements {
+                        id
+                    }
+                    pagination {
+                        endCursor
+                        hasNext
+                        totalElements
+                    }
+                }
+            }""";
+
+    private static final String FILTERED_OFFSET_QUERY = """
+            query($filter: CourseFilter) {
+                courses(filter: $filter, sortBy: ["title", "id"]) {
+                    elements {
+                        id
+                    }
+                }
+            }""";
+
+    @Autowired
+    private CourseRepository courseRepository;
+    @Autowired
+    private CourseService courseService;
+
+    /**
+     * Given three courses exist, two of them with the same title
+     * When the courses are queried page by page with cursors, forward and backward
+     * Then all courses are returned exactly once in the requested order and the pagination info is correct.
+     */
+    @Test
+    void testGetCoursesByCursor(final GraphQlTester tester) {
+        final List<CourseEntity> courses = Stream.of(
+                        dummyCourseBuilder().title("C").build(),
+                        dummyCourseBuilder().title("B").build(),
+                        dummyCourseBuilder().title("B").build())
+                .map(courseRepository::save)
+                .toList();
+        // courses with the same title are ordered by id in the same direction,
+        // the database orders uuids like their string representation
+        final CourseEntity firstB = courses.get(1).getId().toString().compareTo(courses.get(2).getId().toString()) > 0
+                ? courses.get(1) : courses.get(2);
+        final CourseEntity secondB = firstB == courses.get(1) ? courses.get(2) : courses.get(1);
+
+        final GraphQlTester.Response firstPage = tester.document(QUERY).execute();
+        firstPage.path("coursesByCursor.elements[*].id").entityList(UUID.class)
+                .containsExactly(courses.get(0).getId(), firstB.getId())
+                .path("coursesByCursor.pagination.hasNext").entity(Boolean.class).isEqualTo(true)
+                .path("coursesByCursor.pagination.hasPrevious").entity(Boolean.class).isEqualTo(false)
+                .path("coursesByCursor.pagination.totalElements").entity(Integer.class).isEqualTo(3);
+        final String endCursor = firstPage.path("coursesByCursor.pagination.endCursor").entity(String.class).get();
+
+        final GraphQlTester.Response secondPage = tester.document(QUERY).variable("after", endCursor).execute();
+        secondPage.path("coursesByCursor.elements[*].id").entityList(UUID.class)
+                .containsExactly(secondB.getId())
+                .path("coursesByCursor.pagination.hasNext").entity(Boolean.class).isEqualTo(false)
+                .path("coursesByCursor.pagination.hasPrevious").entity(Boolean.class).isEqualTo(true);
+        final String startCursor = secondPage.path("coursesByCursor.pagination.startCursor").entity(String.class).get();
+
+        tester.document(QUERY).variable("before", startCursor).execute()
+                .path("coursesByCursor.elements[*].id").entityList(UUID.class)
+                .containsExactly(courses.get(0).getId(), firstB.getId())
+                .path("coursesByCursor.pagination.hasNext").entity(Boolean.class).isEqualTo(true)
+                .path("coursesByCursor.pagination.hasPrevious").entity(Boolean.class).isEqualTo(false);
+    }
+
+    /**
+     * Given courses with different titles, descriptions, dates and publication states
+     * When the courses are queried with the same filters through the courses query, with and without selecting
+     * columns, and page by page through the coursesByCursor query
+     * Then all paths return the same courses in the same order
+     */
+    @Test
+    void testGetCoursesWithSameFilterByOffsetAndByCursor(final GraphQlTester tester) {
+        Stream.of(
+                        dummyCourseBuilder().title("Databases").description("SQL 100%").published(true).build(),
+                        dummyCourseBuilder().title("databases").description("Relational").build(),
+                        dummyCourseBuilder().title("Algorithms").description("Sorting").published(true).build(),
+                        dummyCourseBuilder().title("Compilers").description("Parsing")
+                                .startDate(OffsetDateTime.parse("2022-01-01T00:00:00Z"))
+                                .endDate(OffsetDateTime.parse("2023-01-01T00:00:00Z"))
+                                .build(),
+                        dummyCourseBuilder().title("Operating Systems").description("Processes").published(true)
+                                .startDate(OffsetDateTime.parse("2022-01-01T00:00:00Z"))
+                                .endDate(OffsetDateTime.parse("2023-01-01T00:00:00Z"))
+                                .build())
+                .forEach(courseRepository::save);
+
+        final List<CourseFilter> filters = List.of(
+                CourseFilter.builder()
+                        .setTitle(StringFilter.builder().setContains("data").setIgnoreCase(true).build())
+                        .build(),
+                CourseFilter.builder()
+                        .setTitle(StringFilter.builder().setEquals("Databases").build())
+                        .build(),
+                CourseFilter.builder()
+                        .setDescription(StringFilter.builder().setContains("0%").build())
+                        .build(),
+                CourseFilter.builder()
+                        .setPublished(true)
+                        .setNot(CourseFilter.builder()
+                                .setTitle(StringFilter.builder().setContains("data").setIgnoreCase(true).build())
+                                .build())
+                        .build(),
+                CourseFilter.builder()
+                        .setStartDate(DateTimeFilter.builder()
+                                .setAfter(OffsetDateTime.parse("2021-01-01T00:00:00Z"))
+                                .build())
+                        .setOr(List.of(CourseFilter.builder()
+                                .setTitle(StringFilter.builder().setContains("rithm").build())
+                                .build()))
+                        .build(),
+                CourseFilter.builder()
+                        .setAnd(List.of(
+                                CourseFilter.builder().setPublished(false).build(),
+                                CourseFilter.builder()
+                                        .setEndDate(DateTimeFilter.builder()
+                                                .setBefore(OffsetDateTime.parse("2022-01-01T00:00:00Z"))
+                                                .build())
+                                        .build()))
+                        .build());
+
+        for (final CourseFilter filter : filters) {
+            final List<UUID> byOffset = tester.document(FILTERED_OFFSET_QUERY)
+                    .variable("filter", filter)
+                    .execute()
+                    .path("courses.elements[*].id").entityList(UUID.class).get();
+            final List<UUID> entities = courseService.getCourses(filter, List.of("title", "id"),
+                            List.of(SortDirection.ASC), null, TotalCountMode.EXACT, null)
+                    .getElements().stream()
+                    .map(Course::getId)
+                    .toList();
+
+            final List<UUID> byCursor = new ArrayList<>();
+            String after = null;
+            boolean hasNext = true;
+            while (hasNext) {
+                final GraphQlTester.Response page = tester.document(FILTERED_QUERY)
+                        .variable("filter", filter)
+                        .variable("after", after)
+                        .execute();
+                byCursor.addAll(page.path("coursesByCursor.elements[*].id").entityList(UUID.class).get());
+                page.path("coursesByCursor.pagination.totalElements").entity(Integer.class)
+                        .isEqualTo(byOffset.size());
+                after = page.path("coursesByCursor.pagination.endCursor").entity(String.class).get();
+                hasNext = page.path("coursesByCursor.pagination.hasNext").entity(Boolean.class).get();
+            }
+
+            assertThat(byOffset, is(not(empty())));
+            assertThat(entities, is(byOffset));
+            assertThat(byCursor, is(byOffset));
+        }
+    }
+
+    /**
+     * When the courses are queried with both an after and a before cursor
+     * Then an error is returned.
+     */
+    @Test
+    void testGetCoursesByCursorWithAfterAndBefore(final GraphQlTester tester) {
+        tester.document(QUERY)
+                .variable("after", "a")
+                .variable("before", "b")
+                .execute()
+                .errors()
+                .expect(responseError -> responseError.getMessage() != null
+                                         && responseError.getMessage().contains("Only one of after and before"));
+    }
+}
@@ -1,23 +1,35 @@
 package de.unistuttgart.iste.gits.course_service.api;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
 import de.unistuttgart.iste.gits.common.testutil.GraphQlApiTest;
 import de.unistuttgart.iste.gits.common.testutil.MockTestPublisherConfiguration;
 import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseEntity;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.ChapterRepository;
 import de.unistuttgart.iste.gits.course_service.persistence.repository.CourseRepository;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.ProjectionQueryExecutor;
 import de.unistuttgart.iste.gits.generated.dto.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
 import org.springframework.graphql.test.tester.GraphQlTester;
 import org.springframework.test.context.ContextConfiguration;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import static de.unistuttgart.iste.gits.course_service.test_utils.TestUtils.dummyChapterBuilder;
 import static de.unistuttgart.iste.gits.course_service.test_utils.TestUtils.dummyCourseBuilder;
 import static java.util.Objects.requireNonNull;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
 
 /**
  * Tests that the courses query works correctly.
@@ -28,6 +40,12 @@ class QueryCoursesTest {
 
     @Autowired
     private CourseRepository courseRepository;
+    @Autowired
+    private ChapterRepository chapterRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private CacheManager cacheManager;
 
     private final ModelMapper modelMapper = new ModelMapper();
 
@@ -110,6 +128,80 @@ class QueryCoursesTest {
                 .path("courses.pagination.hasNext").entity(Boolean.class).isEqualTo(false);
     }
 
+    /**
+     * Given 500 courses with chapters exist
+     * When the courses are queried without selecting the chapters
+     * Then the courses are loaded with a single statement and no chapter collection is initialized.
+     */
+    @Test
+    void testGetCoursesDoesNotLoadChapters(final GraphQlTester tester) {
+        final List<CourseEntity> courses = courseRepository.saveAll(IntStream.range(0, 500)
+                .mapToObj(i -> dummyCourseBuilder().title("Course " + i).build())
+                .toList());
+        chapterRepository.saveAll(courses.stream()
+                .map(course -> dummyChapterBuilder().courseId(course.getId()).build())
+                .toList());
+
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        final String query = """
+                query {
+                    courses {
+                        elements {
+                            id
+                            title
+                        }
+                    }
+                }""";
+
+        tester.document(query)
+                .execute()
+                .path("courses.elements").entityList(Course.class).hasSize(500);
+
+        assertThat(statistics.getPrepareStatementCount(), is(1L));
+        assertThat(statistics.getCollectionLoadCount(), is(0L));
+        assertThat(statistics.getCollectionFetchCount(), is(0L));
+    }
+
+    /**
+     * Given three courses exist
+     * When the first page of courses is queried without total count
+     * Then the courses are loaded with a single statement and hasNext is correct.
+     */
+    @Test
+    void testGetCoursesWithPaginationWithoutCount(final GraphQlTester tester) {
+        Stream.of(
+                        dummyCourseBuilder().title("Course 1").build(),
+                        dummyCourseBuilder().title("Course 2").build(),
+                        dummyCourseBuilder().title("Course 3").build())
+                .forEach(courseRepository::save);
+
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        final String query = """
+                query {
+                    courses(sortBy: ["title"], pagination: {page: 0, size: 2}, totalCount: NONE) {
+                        elements {
+                            title
+                        }
+                        pagination {
+                            totalElements
+                            hasNext
+                        }
+                    }
+                }""";
+
+        tester.document(query)
+                .execute()
+                .path("courses.elements[*].title").entityList(String.class).containsExactly("Course 1", "Course 2")
+                .path("courses.pagination.hasNext").entity(Boolean.class).isEqualTo(true)
+                .path("courses.pagination.totalElements").entity(Integer.class).isEqualTo(3);
+
+        assertThat(statistics.getPrepareStatementCount(), is(1L));
+    }
+
     /**
      * Given two courses exist
      * When the courses are queried with pagination
@@ -285,6 +377,141 @@ class QueryCoursesTest {
                 .contains(entitiesToDtos(data.subList(0, 2)));
     }
 
+    /**
+     * Given courses with titles in different cases and with wildcard characters
+     * When querying all courses with a contains filter
+     * Then the case is only ignored if requested and wildcard characters are matched literally
+     */
+    @Test
+    void testGetCoursesWithContainsFilter(final GraphQlTester tester) {
+        final var data = Stream.of(
+                        dummyCourseBuilder().title("Course 1").build(),
+                        dummyCourseBuilder().title("course 2").build(),
+                        dummyCourseBuilder().title("100% Course").build())
+                .map(courseRepository::save)
+                .toList();
+
+        final String query = """
+                query($filter: CourseFilter!) {
+                    courses(filter: $filter) {
+                        elements {
+                            title
+                        }
+                    }
+                }""";
+
+        // case-insensitive
+        tester.document(query)
+                .variable("filter", CourseFilter.builder()
+                        .setTitle(StringFilter.builder().setContains("COURSE").setIgnoreCase(true).build())
+                        .build())
+                .execute()
+                .path("courses.elements[*].title").entityList(String.class).hasSize(3)
+                .contains(data.stream().map(CourseEntity::getTitle).toArray(String[]::new));
+
+        // case-sensitive
+        tester.document(query)
+                .variable("filter", CourseFilter.builder()
+                        .setTitle(StringFilter.builder().setContains("course").setIgnoreCase(false).build())
+                        .build())
+                .execute()
+                .path("courses.elements[*].title").entityList(String.class)
+                .containsExactly("course 2");
+
+        // wildcards are matched literally
+        tester.document(query)
+                .variable("filter", CourseFilter.builder()
+                        .setTitle(StringFilter.builder().setContains("0%").setIgnoreCase(false).build())
+                        .build())
+                .execute()
+                .path("courses.elements[*].title").entityList(String.class)
+                .containsExactly("100% Course");
+        tester.document(query)
+                .variable("filter", CourseFilter.builder()
+                        .setTitle(StringFilter.builder().setContains("_").setIgnoreCase(false).build())
+                        .build())
+                .execute()
+                .path("courses.elements").entityList(Course.class).hasSize(0);
+    }
+
+    /**
+     * Given a query of courses with a filter was executed
+     * When the courses are queried with a filter of the same structure and different values
+     * Then the statement is taken from the statement cache and the query plan cache and not built or translated again
+     */
+    @Test
+    void testGetCoursesWithFilterOfSameStructureReusesQueryPlan(final GraphQlTester tester) {
+        Stream.of(
+                        dummyCourseBuilder().title("Course 1").published(true).build(),
+                        dummyCourseBuilder().title("Course 2").published(false).build())
+                .forEach(courseRepository::save);
+
+        final String query = """
+                query($filter: CourseFilter!) {
+                    courses(filter: $filter) {
+                        elements {
+                            title
+                        }
+                    }
+                }""";
+
+        tester.document(query)
+                .variable("filter", CourseFilter.builder()
+                        .setTitle(StringFilter.builder().setContains("Course 1").build())
+                        .setPublished(true)
+                        .build())
+                .execute()
+                .path("courses.elements[*].title").entityList(String.class).containsExactly("Course 1");
+
+        final Cache<?, ?> statementCache = (Cache<?, ?>) requireNonNull(
+                cacheManager.getCache(ProjectionQueryExecutor.CACHE_NAME)).getNativeCache();
+        final long cachedStatements = statementCache.estimatedSize();
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        tester.document(query)
+                .variable("filter", CourseFilter.builder()
+                        .setTitle(StringFilter.builder().setContains("Course 2").build())
+                        .setPublished(false)
+                        .build())
+                .execute()
+                .path("courses.elements[*].title").entityList(String.class).containsExactly("Course 2");
+
+        assertThat(cachedStatements, is(greaterThan(0L)));
+        assertThat(statementCache.estimatedSize(), is(cachedStatements));
+        assertThat(statistics.getQueryPlanCacheMissCount(), is(0L));
+        assertThat(statistics.getQueryPlanCacheHitCount(), is(greaterThan(0L)));
+    }
+
+    /**
+     * Given a filter whose not fields are nested deeper than allowed
+     * When querying all courses
+     * Then an error is returned
+     */
+    @Test
+    void testGetCoursesWithTooDeeplyNestedFilter(final GraphQlTester tester) {
+        CourseFilter filter = CourseFilter.builder().setPublished(true).build();
+        for (int i = 0; i < 12; i++) {
+            filter = CourseFilter.builder().setPublished(i % 2 == 0).setNot(filter).build();
+        }
+
+        final String query = """
+                query($filter: CourseFilter!) {
+                    courses(filter: $filter) {
+                        elements {
+                            id
+                        }
+                    }
+                }""";
+
+        tester.document(query)
+                .variable("filter", filter)
+                .execute()
+                .errors()
+                .expect(error -> error.getMessage() != null
+                                 && error.getMessage().contains("Filter is nested too deeply"));
+    }
+
     /**
      * Given a course id
      * When querying a course by id
@@ -318,6 +545,35 @@ class QueryCoursesTest {
                 .contains(entityToDto(initialData.get(1)));
     }
 
+    /**
+     * Given a course that has already been queried by id
+     * When querying the course by id again
+     * Then the course is returned from the cache without a database statement.
+     */
+    @Test
+    void testGetByIdsCached(final GraphQlTester tester) {
+        final CourseEntity course = courseRepository.save(dummyCourseBuilder().title("Course 1").build());
+
+        final String query = """
+                query {
+                    coursesByIds(ids: ["%s"]) {
+                        id
+                        title
+                    }
+                }""".formatted(course.getId());
+
+        tester.document(query).execute();
+
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        tester.document(query)
+                .execute()
+                .path("coursesByIds[0].title").entity(String.class).isEqualTo("Course 1");
+
+        assertThat(statistics.getPrepareStatementCount(), is(0L));
+    }
+
     /**
      * Given a course id of a not existing course
      * When querying a course by id
@@ -0,0 +1,141 @@
+package de.unistuttgart.iste.gits.course_service.api;
+
+import de.unistuttgart.iste.gits.common.testutil.GraphQlApiTest;
+import de.unistuttgart.iste.gits.common.testutil.MockTestPublisherConfiguration;
+import de.unistuttgart.iste.gits.course_service.persistence.entity.ChapterEntity;
+import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseEntity;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.ChapterRepository;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.CourseRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.List;
+
+import static de.unistuttgart.iste.gits.course_service.test_utils.TestUtils.dummyChapterBuilder;
+import static de.unistuttgart.iste.gits.course_service.test_utils.TestUtils.dummyCourseBuilder;
+
+/**
+ * Tests that the searchCourses query works correctly.
+ */
+@ContextConfiguration(classes = MockTestPublisherConfiguration.class)
+@GraphQlApiTest
+class QuerySearchCoursesTest {
+
+    private static final String QUERY = """
+            query($query: String!, $page: Int!) {
+                searchCourses(query: $query, pagination: {page: $page, size: 1}) {
+                    elements {
+                        course {
+                            id
+                        }
+                        titleHighlight
+                        descriptionSnippet
+                    }
+                    pagination {
+                        hasNext
+                    }
+                }
+            }""";
+
+    @Autowired
+    private CourseRepository courseRepository;
+    @Autowired
+    private ChapterRepository chapterRepository;
+
+    /**
+     * Given a course with a matching title and a course with a matching chapter title
+     * When searching for a stemmed word of the titles
+     * Then both courses are found, the course with the matching title first, and the matches are highlighted
+     */
+    @Test
+    void testSearchCourses(final GraphQlTester tester) {
+        final CourseEntity titleMatch = courseRepository.save(dummyCourseBuilder()
+                .title("Introduction to Databases")
+                .description("Relational databases and SQL")
+                .build());
+        final CourseEntity chapterMatch = courseRepository.save(dummyCourseBuilder()
+                .title("Software Engineering")
+                .description("Processes and methods")
+                .build());
+        chapterRepository.save(dummyChapterBuilder().courseId(chapterMatch.getId()).title("Database testing").build());
+        courseRepository.save(dummyCourseBuilder().title("Algorithms").description("Sorting").build());
+
+        tester.document(QUERY)
+                .variable("query", "database")
+                .variable("page", 0)
+                .execute()
+                .path("searchCourses.elements[0].course.id").entity(String.class).isEqualTo(titleMatch.getId().toString())
+                .path("searchCourses.elements[0].titleHighlight").entity(String.class)
+                .isEqualTo("Introduction to <b>Databases</b>")
+                .path("searchCourses.elements[0].descriptionSnippet").entity(String.class)
+                .isEqualTo("Relational <b>databases</b> and SQL")
+                .path("searchCourses.pagination.hasNext").entity(Boolean.class).isEqualTo(true);
+
+        tester.document(QUERY)
+                .variable("query", "database")
+                .variable("page", 1)
+                .execute()
+                .path("searchCourses.elements[0].course.id").entity(String.class).isEqualTo(chapterMatch.getId().toString())
+                .path("searchCourses.pagination.hasNext").entity(Boolean.class).isEqualTo(false);
+    }
+
+    /**
+     * Given two courses whose chapters are inserted together, and then renamed and deleted
+     * When searching for the chapter titles
+     * Then the search vectors of both courses follow the changes of their chapters
+     */
+    @Test
+    void testSearchCoursesAfterChapterChanges(final GraphQlTester tester) {
+        final CourseEntity course1 = courseRepository.save(dummyCourseBuilder().title("Course A").build());
+        final CourseEntity course2 = courseRepository.save(dummyCourseBuilder().title("Course B").build());
+        final List<ChapterEntity> chapters = chapterRepository.saveAll(List.of(
+                dummyChapterBuilder().courseId(course1.getId()).title("Compilers").number(1).build(),
+                dummyChapterBuilder().courseId(course1.getId()).title("Parsing").number(2).build(),
+                dummyChapterBuilder().courseId(course2.getId()).title("Compilers").number(1).build()));
+
+        tester.document(QUERY)
+                .variable("query", "compilers")
+                .variable("page", 1)
+                .execute()
+                .path("searchCourses.elements").entityList(Object.class).hasSize(1);
+
+        final ChapterEntity renamed = chapters.get(0);
+        renamed.setTitle("Optimization");
+        chapterRepository.save(renamed);
+        chapterRepository.delete(chapters.get(2));
+
+        tester.document(QUERY)
+                .variable("query", "compilers")
+                .variable("page", 0)
+                .execute()
+                .path("searchCourses.elements").entityList(Object.class).hasSize(0);
+        tester.document(QUERY)
+                .variable("query", "optimization")
+                .variable("page", 0)
+                .execute()
+                .path("searchCourses.elements[0].course.id").entity(String.class).isEqualTo(course1.getId().toString());
+        tester.document(QUERY)
+                .variable("query", "parsing")
+                .variable("page", 0)
+                .execute()
+                .path("searchCourses.elements[0].course.id").entity(String.class).isEqualTo(course1.getId().toString());
+    }
+
+    /**
+     * Given a blank search query
+     * When searching courses
+     * Then an error is returned
+     */
+    @Test
+    void testSearchCoursesBlankQuery(final GraphQlTester tester) {
+        tester.document(QUERY)
+                .variable("query", " ")
+                .variable("page", 0)
+                .execute()
+                .errors()
+                .expect(error -> error.getMessage() != null
+                                 && error.getMessage().contains("The search query must not be blank"));
+    }
+}
@@ -0,0 +1,166 @@
+package de.unistuttgart.iste.gits.course_service.persistence.specification;
+
+import de.unistuttgart.iste.gits.generated.dto.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit tests for {@link FilterConditions}.
+ */
+class FilterConditionsTest {
+
+    /**
+     * Given no filter
+     * When the filter is compiled
+     * Then the condition does not restrict the courses
+     */
+    @Test
+    void testCompileNoFilter() {
+        final FilterCondition condition = FilterConditions.courseFilter(null);
+
+        assertThat(condition.condition(), is(nullValue()));
+        assertThat(condition.parameters(), is(empty()));
+    }
+
+    /**
+     * Given two filters with the same structure and different values
+     * When the filters are compiled
+     * Then the conditions are equal and only the parameters differ
+     */
+    @Test
+    void testCompileFiltersWithSameStructure() {
+        final FilterCondition first = FilterConditions.courseFilter(courseFilter("Course 1", true));
+        final FilterCondition second = FilterConditions.courseFilter(courseFilter("Course 2", false));
+
+        assertThat(first.condition(), is(second.condition()));
+        assertThat(first.parameters(), contains("%course 1%", "%Course 1%", true));
+        assertThat(second.parameters(), contains("%course 2%", "%Course 2%", false));
+    }
+
+    /**
+     * Given two filters that only differ in whether the case is ignored
+     * When the filters are compiled
+     * Then the conditions differ
+     */
+    @Test
+    void testCompileFiltersWithDifferentStructure() {
+        final CourseFilter caseSensitive = CourseFilter.builder()
+                .setTitle(StringFilter.builder().setContains("Course").setIgnoreCase(false).build())
+                .build();
+        final CourseFilter ignoreCase = CourseFilter.builder()
+                .setTitle(StringFilter.builder().setContains("Course").setIgnoreCase(true).build())
+                .build();
+
+        assertThat(FilterConditions.courseFilter(caseSensitive).condition(),
+                is(not(FilterConditions.courseFilter(ignoreCase).condition())));
+    }
+
+    /**
+     * Given a filter with and, or and not subfilters
+     * When the filter is compiled
+     * Then the predicates of the filter, the and list and the not are combined with and, the or list with or,
+     * and the parameters are numbered in the order of the predicates
+     */
+    @Test
+    void testCompileNestedFilter() {
+        final OffsetDateTime after = OffsetDateTime.parse("2021-01-01T00:00:00Z");
+        final CourseFilter filter = CourseFilter.builder()
+                .setPublished(true)
+                .setAnd(List.of(CourseFilter.builder()
+                        .setStartDate(DateTimeFilter.builder().setAfter(after).build())
+                        .build()))
+                .setNot(CourseFilter.builder()
+                        .setTitle(StringFilter.builder().setEquals("A").setIgnoreCase(true).build())
+                        .build())
+                .setOr(List.of(
+                        CourseFilter.builder().setPublished(false).build(),
+                        CourseFilter.builder().setTitle(StringFilter.builder().setEquals("B").build()).build()))
+                .build();
+
+        final FilterCondition condition = FilterConditions.courseFilter(filter);
+
+        assertThat(condition.condition(), is("((e.published = ?1 and e.startDate > ?2 and not (lower(e.title) = ?3))"
+                                             + " or (e.published = ?4 or e.title = ?5))"));
+        assertThat(condition.parameters(), contains(true, after, "a", false, "B"));
+    }
+
+    /**
+     * Given a contains filter with wildcard characters
+     * When the filter is compiled
+     * Then the wildcard characters are escaped
+     */
+    @Test
+    void testCompileContainsFilterEscapesWildcards() {
+        final CourseFilter filter = CourseFilter.builder()
+                .setTitle(StringFilter.builder().setContains("10%_!").setIgnoreCase(true).build())
+                .build();
+
+        final FilterCondition condition = FilterConditions.courseFilter(filter);
+
+        assertThat(condition.condition(), is("lower(e.title) like ?1 escape '!'"));
+        assertThat(condition.parameters(), contains("%10!%!_!!%"));
+    }
+
+    /**
+     * Given the ids of courses and a chapter filter
+     * When the filter is compiled
+     * Then the chapters are restricted to the courses with a single parameter
+     */
+    @Test
+    void testCompileChapterFilter() {
+        final List<UUID> courseIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+        final ChapterFilter filter = ChapterFilter.builder()
+                .setNumber(IntFilter.builder().setGreaterThan(1).setLessThan(5).build())
+                .build();
+
+        final FilterCondition condition = FilterConditions.chapterFilter(courseIds, filter);
+
+        assertThat(condition.condition(), is("(e.courseId in (?1) and (e.number > ?2 and e.number < ?3))"));
+        assertThat(condition.parameters(), contains(courseIds, 1, 5));
+    }
+
+    /**
+     * Given a compiled filter and the position of a cursor
+     * When the filter is restricted to the entities after the position
+     * Then the parameters of the position are numbered after the parameters of the filter
+     */
+    @Test
+    void testCompileAfter() {
+        final UUID id = UUID.randomUUID();
+        final FilterCondition filter = FilterConditions.courseFilter(CourseFilter.builder().setPublished(true).build());
+
+        final FilterCondition condition = FilterConditions.after(filter, "title", "B", id, false);
+
+        assertThat(condition.condition(), is("(e.published = ?1 and (e.title < ?2 or (e.title = ?3 and e.id < ?4)))"));
+        assertThat(condition.parameters(), contains(true, "B", "B", id));
+    }
+
+    /**
+     * Given no filter and the position of a cursor sorted by id
+     * When the filter is restricted to the entities after the position
+     * Then only the id is compared
+     */
+    @Test
+    void testCompileAfterId() {
+        final UUID id = UUID.randomUUID();
+
+        final FilterCondition condition = FilterConditions.after(
+                FilterConditions.courseFilter(null), "id", id, id, true);
+
+        assertThat(condition.condition(), is("e.id > ?1"));
+        assertThat(condition.parameters(), contains(id));
+    }
+
+    private static CourseFilter courseFilter(final String title, final boolean published) {
+        return CourseFilter.builder()
+                .setTitle(StringFilter.builder().setContains(title).build())
+                .setPublished(published)
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package de.unistuttgart.iste.gits.course_service.persistence.validation;
+
+import de.unistuttgart.iste.gits.generated.dto.*;
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link FilterNormalizer}.
+ */
+class FilterNormalizerTest {
+
+    private final FilterNormalizer filterNormalizer = new FilterNormalizer(3, 4);
+
+    /**
+     * Given a filter without any predicate, with empty subfilters
+     * When the filter is normalized
+     * Then null is returned
+     */
+    @Test
+    void testNormalizeEmptyFilter() {
+        final CourseFilter filter = CourseFilter.builder()
+                .setAnd(List.of(CourseFilter.builder().build()))
+                .setOr(List.of())
+                .setNot(CourseFilter.builder().build())
+                .build();
+
+        assertThat(filterNormalizer.normalize(filter), is(nullValue()));
+    }
+
+    /**
+     * Given a filter with nested and lists, duplicate subfilters and a double negation
+     * When the filter is normalized
+     * Then the and lists are flattened, the duplicates removed and the double negation resolved
+     */
+    @Test
+    void testNormalizeFlattensAndDeduplicates() {
+        final CourseFilter title = titleContains("a");
+        final CourseFilter published = CourseFilter.builder().setPublished(true).build();
+        final CourseFilter filter = CourseFilter.builder()
+                .setAnd(List.of(
+                        CourseFilter.builder().setAnd(List.of(title, published)).build(),
+                        title))
+                .setNot(CourseFilter.builder().setNot(published).build())
+                .build();
+
+        final CourseFilter expected = CourseFilter.builder()
+                .setAnd(List.of(title, published))
+                .build();
+        assertThat(filterNormalizer.normalize(filter), is(expected));
+    }
+
+    /**
+     * Given a filter that only consists of an or list with a single subfilter
+     * When the filter is normalized
+     * Then the subfilter is returned
+     */
+    @Test
+    void testNormalizeSingleSubfilter() {
+        final ChapterFilter number = ChapterFilter.builder().setNumber(IntFilter.builder().setEquals(1).build()).build();
+        final ChapterFilter filter = ChapterFilter.builder()
+                .setOr(List.of(ChapterFilter.builder().setOr(List.of(number, number)).build()))
+                .build();
+
+        assertThat(filterNormalizer.normalize(filter), is(number));
+    }
+
+    /**
+     * Given a filter whose or lists are nested deeper than allowed
+     * When the filter is normalized
+     * Then a ValidationException is thrown
+     */
+    @Test
+    void testNormalizeTooDeep() {
+        CourseFilter filter = titleContains("a");
+        for (int i = 0; i < 4; i++) {
+            filter = CourseFilter.builder().setOr(List.of(filter, titleContains("b" + i))).build();
+        }
+        final CourseFilter tooDeep = filter;
+
+        final ValidationException exception = assertThrows(ValidationException.class,
+                () -> filterNormalizer.normalize(tooDeep));
+        assertThat(exception.getMessage(), containsString("at most 3 levels"));
+    }
+
+    /**
+     * Given a filter with more predicates than allowed, which are not duplicates
+     * When the filter is normalized
+     * Then a ValidationException is thrown
+     */
+    @Test
+    void testNormalizeTooManyPredicates() {
+        final List<CourseFilter> subfilters = new ArrayList<>(IntStream.range(0, 5)
+                .mapToObj(i -> titleContains(Integer.toString(i)))
+                .toList());
+        final CourseFilter filter = CourseFilter.builder().setOr(subfilters).build();
+
+        final ValidationException exception = assertThrows(ValidationException.class,
+                () -> filterNormalizer.normalize(filter));
+        assertThat(exception.getMessage(), is("Filter contains 5 predicates, at most 4 are allowed"));
+
+        // duplicates do not count
+        subfilters.set(4, subfilters.get(0));
+        final CourseFilter filterWithDuplicate = CourseFilter.builder().setOr(subfilters).build();
+        assertThat(filterNormalizer.normalize(filterWithDuplicate).getOr(), hasSize(4));
+    }
+
+    private static CourseFilter titleContains(final String value) {
+        return CourseFilter.builder()
+                .setTitle(StringFilter.builder().setContains(value).build())
+                .build();
+    }
+}
@@ -0,0 +1,118 @@
+package de.unistuttgart.iste.gits.course_service.service;
+
+import de.unistuttgart.iste.gits.course_service.config.LoopbackTopicPublisher;
+import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseEntity;
+import de.unistuttgart.iste.gits.course_service.persistence.mapper.CourseMapperImpl;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.ChapterRepository;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.CourseRepository;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.ProjectionQueryExecutor;
+import de.unistuttgart.iste.gits.course_service.persistence.validation.CourseValidator;
+import de.unistuttgart.iste.gits.course_service.persistence.validation.FilterNormalizer;
+import de.unistuttgart.iste.gits.generated.dto.Course;
+import de.unistuttgart.iste.gits.generated.dto.UpdateCourseInput;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the invalidation of the course cache across replicas, connected by a {@link LoopbackTopicPublisher}.
+ */
+class CacheInvalidatorTest {
+
+    // the database shared by the replicas
+    private final CourseRepository courseRepository = Mockito.mock(CourseRepository.class);
+
+    private final LoopbackTopicPublisher topicPublisher = new LoopbackTopicPublisher();
+
+    private final ChangeEventOutbox changeEventOutbox = Mockito.mock(ChangeEventOutbox.class);
+
+    private final CourseService replica1 = createReplica();
+    private final CourseService replica2 = createReplica();
+
+    @BeforeEach
+    void setUp() {
+        // publish the course change events immediately, as the outbox relay does after the commit
+        doAnswer(invocation -> {
+            topicPublisher.notifyCourseChanges(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).when(changeEventOutbox).courseChanged(any(), any());
+    }
+
+    /**
+     * Given a course cached by two replicas
+     * When the course is updated on one replica
+     * Then the other replica loads the updated course on the next request
+     */
+    @Test
+    void testUpdateCourseEvictsCacheOfOtherReplica() {
+        // arrange
+        final CourseEntity course = dummyCourseEntity("title");
+        final CourseEntity updatedCourse = dummyCourseEntity("new title");
+        updatedCourse.setId(course.getId());
+
+        // mock repository
+        when(courseRepository.getAllByIdPreservingOrder(List.of(course.getId())))
+                .thenReturn(List.of(course))
+                .thenReturn(List.of(course))
+                .thenReturn(List.of(updatedCourse));
+        when(courseRepository.findById(course.getId())).thenReturn(Optional.of(course));
+        when(courseRepository.save(any(CourseEntity.class))).thenReturn(updatedCourse);
+
+        replica1.getCoursesByIds(List.of(course.getId()));
+        replica2.getCoursesByIds(List.of(course.getId()));
+
+        // act
+        replica1.updateCourse(UpdateCourseInput.builder()
+                .setId(course.getId())
+                .setTitle("new title")
+                .setDescription("description")
+                .setStartDate(course.getStartDate())
+                .setEndDate(course.getEndDate())
+                .setPublished(false)
+                .build());
+        final List<Course> courses = replica2.getCoursesByIds(List.of(course.getId()));
+
+        // assert
+        assertThat(courses.get(0).getTitle(), is("new title"));
+        verify(courseRepository, times(3)).getAllByIdPreservingOrder(List.of(course.getId()));
+    }
+
+    private CourseService createReplica() {
+        final CourseCache courseCache = new CourseCache(new ConcurrentMapCacheManager(CourseCache.CACHE_NAME));
+        topicPublisher.subscribe(new CacheInvalidator(courseCache));
+
+        return new CourseService(courseRepository,
+                Mockito.mock(ChapterRepository.class),
+                Mockito.mock(MembershipService.class),
+                new CourseMapperImpl(),
+                new CourseValidator(),
+                changeEventOutbox,
+                Mockito.mock(ProjectionQueryExecutor.class),
+                Mockito.mock(KeysetPageLoader.class),
+                courseCache,
+                new ChapterCourseIdCache(new ConcurrentMapCacheManager(ChapterCourseIdCache.CACHE_NAME)),
+                new FilterNormalizer(10, 100));
+    }
+
+    private CourseEntity dummyCourseEntity(final String title) {
+        return CourseEntity.builder()
+                .id(UUID.randomUUID())
+                .title(title)
+                .description("description")
+                .startDate(OffsetDateTime.parse("2021-01-01T00:00:00Z"))
+                .endDate(OffsetDateTime.parse("2021-01-01T00:00:00Z"))
+                .published(false)
+                .build();
+    }
+}
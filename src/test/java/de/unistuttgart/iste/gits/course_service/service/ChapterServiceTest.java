@@ -1,17 +1,19 @@
 package de.unistuttgart.iste.gits.course_service.service;
 
-import de.unistuttgart.iste.gits.common.dapr.TopicPublisher;
 import de.unistuttgart.iste.gits.common.event.CrudOperation;
 import de.unistuttgart.iste.gits.course_service.persistence.entity.ChapterEntity;
 import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseEntity;
 import de.unistuttgart.iste.gits.course_service.persistence.mapper.ChapterMapper;
+import de.unistuttgart.iste.gits.course_service.persistence.mapper.ChapterMapperImpl;
 import de.unistuttgart.iste.gits.course_service.persistence.repository.ChapterRepository;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.ProjectionQueryExecutor;
 import de.unistuttgart.iste.gits.course_service.persistence.validation.ChapterValidator;
+import de.unistuttgart.iste.gits.course_service.persistence.validation.FilterNormalizer;
 import de.unistuttgart.iste.gits.generated.dto.*;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ValidationException;
 import org.junit.jupiter.api.Test;
-import org.modelmapper.ModelMapper;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 
 import java.time.*;
 import java.util.*;
@@ -19,7 +21,7 @@ import java.util.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 
@@ -30,17 +32,25 @@ class ChapterServiceTest {
 
     private final ChapterRepository chapterRepository = mock(ChapterRepository.class);
     private final CourseService courseService = mock(CourseService.class);
-    private final ChapterMapper chapterMapper = new ChapterMapper(new ModelMapper());
+    private final ChapterMapper chapterMapper = new ChapterMapperImpl();
     private final ChapterValidator chapterValidator = spy(new ChapterValidator());
 
-    private final TopicPublisher topicPublisher = mock(TopicPublisher.class);
+    private final ChangeEventOutbox changeEventOutbox = mock(ChangeEventOutbox.class);
+    private final ProjectionQueryExecutor projectionQueryExecutor = mock(ProjectionQueryExecutor.class);
+    private final KeysetPageLoader keysetPageLoader = mock(KeysetPageLoader.class);
+    private final ChapterCourseIdCache chapterCourseIdCache =
+            new ChapterCourseIdCache(new ConcurrentMapCacheManager(ChapterCourseIdCache.CACHE_NAME));
 
     private final ChapterService chapterService = new ChapterService(
             chapterMapper,
             chapterRepository,
             courseService,
             chapterValidator,
-            topicPublisher);
+            changeEventOutbox,
+            projectionQueryExecutor,
+            keysetPageLoader,
+            chapterCourseIdCache,
+            new FilterNormalizer(10, 100));
 
     @Test
     void testGetChaptersByIdsMissingChapter() {
@@ -153,15 +163,12 @@ class ChapterServiceTest {
                 .build();
 
         // mock repository
-        when(chapterRepository.save(any()))
-                .thenReturn(expectedChapter);
-        when(chapterRepository.existsById(testUpdateChapterInput.getId()))
-                .thenReturn(true);
-        when(chapterRepository.findById(testUpdateChapterInput.getId()))
+        when(chapterRepository.updateReturning(any()))
                 .thenReturn(Optional.of(expectedChapter));
 
         // act
-        final Chapter updatedChapter = chapterService.updateChapter(testUpdateChapterInput);
+        final Chapter updatedChapter = chapterService.updateChapter(testUpdateChapterInput,
+                expectedChapter.getCourseId());
 
         // assert
         assertThat(updatedChapter.getId(), is(expectedChapter.getId()));
@@ -172,11 +179,32 @@ class ChapterServiceTest {
         assertThat(updatedChapter.getNumber(), is(expectedChapter.getNumber()));
         assertThat(updatedChapter.getCourse().getId(), is(expectedChapter.getCourseId()));
 
-        // verify that the repository and validator were called
+        // verify that the chapter was updated with the given course id and not loaded before
         verify(chapterValidator)
                 .validateUpdateChapterInput(testUpdateChapterInput);
         verify(chapterRepository, times(1))
-                .save(any(ChapterEntity.class));
+                .updateReturning(argThat(chapter -> chapter.getCourseId().equals(expectedChapter.getCourseId())));
+        verify(chapterRepository, never())
+                .findById(any());
+    }
+
+    /**
+     * Given an UpdateChapterInput of a chapter that does not exist
+     * When updateChapter is called
+     * Then an EntityNotFoundException is thrown
+     */
+    @Test
+    void testUpdateChapterNotExisting() {
+        // arrange test data
+        final UpdateChapterInput testUpdateChapterInput = dummyUpdateChapterInputBuilder(UUID.randomUUID()).build();
+
+        // mock repository
+        when(chapterRepository.updateReturning(any()))
+                .thenReturn(Optional.empty());
+
+        // act and assert
+        assertThrows(EntityNotFoundException.class,
+                () -> chapterService.updateChapter(testUpdateChapterInput, UUID.randomUUID()));
     }
 
     /**
@@ -193,16 +221,66 @@ class ChapterServiceTest {
                 .setEndDate(OffsetDateTime.now())
                 .build();
 
+        // act and assert
+        assertThrows(ValidationException.class,
+                () -> chapterService.updateChapter(testUpdateChapterInput, expectedChapter.getCourseId()));
+
+        // verify that the repository was not called
+        verifyNoInteractions(chapterRepository);
+    }
+
+    /**
+     * Given two valid UpdateChapterInputs
+     * When updateChapters is called
+     * Then the chapters are loaded with one query and saved together, keeping their course ids
+     */
+    @Test
+    void testUpdateChaptersSuccessful() {
+        // arrange test data
+        final ChapterEntity chapter1 = dummyChapterEntityBuilder().courseId(UUID.randomUUID()).build();
+        final ChapterEntity chapter2 = dummyChapterEntityBuilder().courseId(UUID.randomUUID()).build();
+        final List<UpdateChapterInput> inputs = List.of(
+                dummyUpdateChapterInputBuilder(chapter1.getId()).setTitle("new title 1").build(),
+                dummyUpdateChapterInputBuilder(chapter2.getId()).setTitle("new title 2").build());
+
         // mock repository
-        when(chapterRepository.findById(testUpdateChapterInput.getId()))
-                .thenReturn(Optional.of(expectedChapter));
+        when(chapterRepository.getAllByIdPreservingOrder(List.of(chapter1.getId(), chapter2.getId())))
+                .thenReturn(List.of(chapter1, chapter2));
+        when(chapterRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // act
+        final List<Chapter> updatedChapters = chapterService.updateChapters(inputs);
+
+        // assert
+        assertThat(updatedChapters.stream().map(Chapter::getTitle).toList(), is(List.of("new title 1", "new title 2")));
+        assertThat(updatedChapters.get(0).getCourse().getId(), is(chapter1.getCourseId()));
+        assertThat(updatedChapters.get(1).getCourse().getId(), is(chapter2.getCourseId()));
+
+        // verify that the chapters were saved in one call and not loaded individually
+        verify(chapterValidator).validateUpdateChapterInputs(inputs);
+        verify(chapterRepository, times(1)).saveAll(anyList());
+        verify(chapterRepository, never()).findById(any());
+    }
+
+    /**
+     * Given two UpdateChapterInputs for the same chapter
+     * When updateChapters is called
+     * Then a ValidationException is thrown and no chapter is saved
+     */
+    @Test
+    void testUpdateChaptersDuplicateChapter() {
+        // arrange test data
+        final UUID chapterId = UUID.randomUUID();
+        final List<UpdateChapterInput> inputs = List.of(
+                dummyUpdateChapterInputBuilder(chapterId).build(),
+                dummyUpdateChapterInputBuilder(chapterId).build());
 
         // act and assert
-        assertThrows(ValidationException.class, () -> chapterService.updateChapter(testUpdateChapterInput));
+        assertThrows(ValidationException.class, () -> chapterService.updateChapters(inputs));
 
         // verify that the repository was not called
-        verify(chapterRepository, never())
-                .save(any(ChapterEntity.class));
+        verifyNoInteractions(chapterRepository);
     }
 
     /**
@@ -215,23 +293,24 @@ class ChapterServiceTest {
         // arrange test data
         final UUID testChapterId = UUID.randomUUID();
 
+        final UUID testCourseId = UUID.randomUUID();
+
         // mock repository
-        doNothing()
-                .when(chapterRepository).deleteById(any());
-        doReturn(Optional.of(dummyChapterEntityBuilder().build()))
-                .when(chapterRepository).findById(any());
+        doReturn(1)
+                .when(chapterRepository).deleteByIdAndCourseId(testChapterId, testCourseId);
 
         // act
-        final UUID deletedChapterId = chapterService.deleteChapter(testChapterId);
+        final UUID deletedChapterId = chapterService.deleteChapter(testChapterId, testCourseId);
 
         // assert
         assertThat(deletedChapterId, is(testChapterId));
 
-        // verify that the repository was called
-        verify(chapterRepository).deleteById(testChapterId);
+        // verify that the chapter was deleted without loading it
+        verify(chapterRepository).deleteByIdAndCourseId(testChapterId, testCourseId);
+        verify(chapterRepository, never()).findById(any());
 
         //verify notification method was called
-        verify(topicPublisher).notifyChapterChanges(List.of(testChapterId), CrudOperation.DELETE);
+        verify(changeEventOutbox).chaptersChanged(List.of(testChapterId), CrudOperation.DELETE);
     }
 
     /**
@@ -245,14 +324,212 @@ class ChapterServiceTest {
         final UUID testChapterId = UUID.randomUUID();
 
         // mock repository
-        doReturn(false)
-                .when(chapterRepository).existsById(any());
+        doReturn(0)
+                .when(chapterRepository).deleteByIdAndCourseId(any(), any());
 
         // act
-        assertThrows(EntityNotFoundException.class, () -> chapterService.deleteChapter(testChapterId));
+        assertThrows(EntityNotFoundException.class, () -> chapterService.deleteChapter(testChapterId, UUID.randomUUID()));
 
         //verify notification method was NOT called
-        verify(topicPublisher, never()).notifyChapterChanges(List.of(testChapterId), CrudOperation.DELETE);
+        verify(changeEventOutbox, never()).chaptersChanged(List.of(testChapterId), CrudOperation.DELETE);
+    }
+
+    /**
+     * Given an existing chapter
+     * When getCourseIdForChapterId is called twice
+     * Then the course id is only queried once
+     */
+    @Test
+    void testGetCourseIdForChapterIdCached() {
+        // arrange test data
+        final UUID chapterId = UUID.randomUUID();
+        final UUID courseId = UUID.randomUUID();
+
+        // mock repository
+        when(chapterRepository.findCourseIdOfChapter(chapterId))
+                .thenReturn(Optional.of(courseId));
+
+        // act
+        final UUID firstCourseId = chapterService.getCourseIdForChapterId(chapterId);
+        final UUID secondCourseId = chapterService.getCourseIdForChapterId(chapterId);
+
+        // assert
+        assertThat(firstCourseId, is(courseId));
+        assertThat(secondCourseId, is(courseId));
+        verify(chapterRepository, times(1)).findCourseIdOfChapter(chapterId);
+    }
+
+    /**
+     * Given a created chapter
+     * When getCourseIdForChapterId is called before and after the chapter is deleted
+     * Then the course id is served from the cache before and queried again after the deletion
+     */
+    @Test
+    void testCreateAndDeleteChapterUpdateCourseIdCache() {
+        // arrange test data
+        final CreateChapterInput input = dummyCreateChapterInputBuilder().setCourseId(UUID.randomUUID()).build();
+        final ChapterEntity createdChapter = dummyChapterEntityBuilder().courseId(input.getCourseId()).build();
+
+        // mock repository
+        when(chapterRepository.save(any()))
+                .thenReturn(createdChapter);
+        when(chapterRepository.deleteByIdAndCourseId(createdChapter.getId(), input.getCourseId()))
+                .thenReturn(1);
+        when(chapterRepository.findCourseIdOfChapter(createdChapter.getId()))
+                .thenReturn(Optional.empty());
+
+        // act and assert
+        chapterService.createChapter(input);
+        assertThat(chapterService.getCourseIdForChapterId(createdChapter.getId()), is(input.getCourseId()));
+        verify(chapterRepository, never()).findCourseIdOfChapter(any());
+
+        chapterService.deleteChapter(createdChapter.getId(), input.getCourseId());
+        assertThrows(EntityNotFoundException.class,
+                () -> chapterService.getCourseIdForChapterId(createdChapter.getId()));
+        verify(chapterRepository, times(1)).findCourseIdOfChapter(createdChapter.getId());
+    }
+
+    /**
+     * Given chapters of two different courses
+     * When getCoursesForChapters is called
+     * Then each distinct course is requested only once and the courses are returned in the order of the chapters
+     */
+    @Test
+    void testGetCoursesForChapters() {
+        // arrange test data
+        final Course course1 = Course.builder().setId(UUID.randomUUID()).setTitle("Course 1").build();
+        final Course course2 = Course.builder().setId(UUID.randomUUID()).setTitle("Course 2").build();
+        final List<Chapter> chapters = List.of(
+                chapterMapper.entityToDto(dummyChapterEntityBuilder().courseId(course1.getId()).build()),
+                chapterMapper.entityToDto(dummyChapterEntityBuilder().courseId(course2.getId()).build()),
+                chapterMapper.entityToDto(dummyChapterEntityBuilder().courseId(course1.getId()).build()));
+
+        // mock service
+        when(courseService.getCoursesByIds(List.of(course1.getId(), course2.getId())))
+                .thenReturn(List.of(course1, course2));
+
+        // act
+        final List<Course> courses = chapterService.getCoursesForChapters(chapters);
+
+        // assert
+        assertThat(courses, is(List.of(course1, course2, course1)));
+
+        // verify that the courses were loaded with a single call and no chapter was loaded again
+        verify(courseService, times(1)).getCoursesByIds(List.of(course1.getId(), course2.getId()));
+        verifyNoInteractions(chapterRepository);
+    }
+
+    /**
+     * Given the chapters fields of two courses with identical paginated arguments
+     * When getChaptersOfCourses is called
+     * Then the chapters of both courses are loaded with one page query and one count query
+     */
+    @Test
+    void testGetChaptersOfCoursesPaged() {
+        // arrange test data
+        final UUID courseId1 = UUID.randomUUID();
+        final UUID courseId2 = UUID.randomUUID();
+        final ChapterService.ChapterQueryArguments arguments = new ChapterService.ChapterQueryArguments(
+                null, List.of(), List.of(SortDirection.ASC), Pagination.builder().setPage(0).setSize(2).build(),
+                TotalCountMode.EXACT, null);
+        final ChapterService.CourseChaptersKey key1 = new ChapterService.CourseChaptersKey(courseId1, arguments);
+        final ChapterService.CourseChaptersKey key2 = new ChapterService.CourseChaptersKey(courseId2, arguments);
+
+        final ChapterEntity chapter1 = dummyChapterEntityBuilder().courseId(courseId1).number(1).build();
+        final ChapterEntity chapter2 = dummyChapterEntityBuilder().courseId(courseId1).number(2).build();
+
+        // mock repository
+        when(chapterRepository.findPageOfChaptersPerCourse(any(), any(), any(), eq(0L), eq(2)))
+                .thenReturn(List.of(chapter1, chapter2));
+        when(chapterRepository.countChaptersPerCourse(any(), any()))
+                .thenReturn(Map.of(courseId1, 3L));
+
+        // act
+        final Map<ChapterService.CourseChaptersKey, ChapterPayload> result =
+                chapterService.getChaptersOfCourses(List.of(key1, key2));
+
+        // assert
+        assertThat(result.get(key1).getElements().stream().map(Chapter::getId).toList(),
+                is(List.of(chapter1.getId(), chapter2.getId())));
+        assertThat(result.get(key1).getPagination().getTotalElements(), is(3));
+        assertThat(result.get(key1).getPagination().getHasNext(), is(true));
+        assertThat(result.get(key2).getElements(), is(List.of()));
+        assertThat(result.get(key2).getPagination().getTotalElements(), is(0));
+
+        // verify that both courses were answered by the same queries
+        verify(chapterRepository, times(1)).findPageOfChaptersPerCourse(any(), any(), any(), anyLong(), anyInt());
+        verify(chapterRepository, times(1)).countChaptersPerCourse(any(), any());
+    }
+
+    /**
+     * Given the chapters field of a course with paginated arguments and without total count
+     * When getChaptersOfCourses is called
+     * Then one additional chapter is loaded to determine hasNext and no count query is executed
+     */
+    @Test
+    void testGetChaptersOfCoursesPagedWithoutCount() {
+        // arrange test data
+        final UUID courseId = UUID.randomUUID();
+        final ChapterService.ChapterQueryArguments arguments = new ChapterService.ChapterQueryArguments(
+                null, List.of(), List.of(SortDirection.ASC), Pagination.builder().setPage(0).setSize(2).build(),
+                TotalCountMode.NONE, null);
+        final ChapterService.CourseChaptersKey key = new ChapterService.CourseChaptersKey(courseId, arguments);
+
+        final List<ChapterEntity> chapters = List.of(
+                dummyChapterEntityBuilder().courseId(courseId).number(1).build(),
+                dummyChapterEntityBuilder().courseId(courseId).number(2).build(),
+                dummyChapterEntityBuilder().courseId(courseId).number(3).build());
+
+        // mock repository
+        when(chapterRepository.findPageOfChaptersPerCourse(any(), any(), any(), eq(0L), eq(3)))
+                .thenReturn(chapters);
+
+        // act
+        final ChapterPayload result = chapterService.getChaptersOfCourses(List.of(key)).get(key);
+
+        // assert
+        assertThat(result.getElements().stream().map(Chapter::getId).toList(),
+                is(List.of(chapters.get(0).getId(), chapters.get(1).getId())));
+        assertThat(result.getPagination().getHasNext(), is(true));
+        assertThat(result.getPagination().getTotalElements(), is(3));
+
+        verify(chapterRepository, never()).countChaptersPerCourse(any(), any());
+    }
+
+    /**
+     * Given the chapters field of a course with a filter and paginated arguments
+     * When getChaptersOfCourses is called
+     * Then the filter is applied in the page query and in the count query instead of loading all matching chapters
+     */
+    @Test
+    void testGetChaptersOfCoursesFilteredPaged() {
+        // arrange test data
+        final UUID courseId = UUID.randomUUID();
+        final ChapterFilter filter = ChapterFilter.builder()
+                .setTitle(StringFilter.builder().setContains("a").build())
+                .build();
+        final ChapterService.ChapterQueryArguments arguments = new ChapterService.ChapterQueryArguments(
+                filter, List.of(), List.of(SortDirection.ASC), Pagination.builder().setPage(1).setSize(2).build(),
+                TotalCountMode.EXACT, null);
+        final ChapterService.CourseChaptersKey key = new ChapterService.CourseChaptersKey(courseId, arguments);
+
+        final ChapterEntity chapter = dummyChapterEntityBuilder().courseId(courseId).number(4).build();
+
+        // mock repository
+        when(chapterRepository.findPageOfChaptersPerCourse(any(), eq(filter), any(), eq(2L), eq(2)))
+                .thenReturn(List.of(chapter));
+        when(chapterRepository.countChaptersPerCourse(any(), eq(filter)))
+                .thenReturn(Map.of(courseId, 3L));
+
+        // act
+        final ChapterPayload result = chapterService.getChaptersOfCourses(List.of(key)).get(key);
+
+        // assert
+        assertThat(result.getElements().stream().map(Chapter::getId).toList(), is(List.of(chapter.getId())));
+        assertThat(result.getPagination().getTotalElements(), is(3));
+        assertThat(result.getPagination().getHasNext(), is(false));
+
+        verifyNoInteractions(projectionQueryExecutor);
     }
 
     private static UpdateChapterInput.Builder dummyUpdateChapterInputBuilder(final UUID uuid) {
@@ -1,18 +1,21 @@
 package de.unistuttgart.iste.gits.course_service.service;
 
-import de.unistuttgart.iste.gits.common.dapr.TopicPublisher;
 import de.unistuttgart.iste.gits.common.event.CrudOperation;
 import de.unistuttgart.iste.gits.course_service.persistence.entity.ChapterEntity;
 import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseEntity;
 import de.unistuttgart.iste.gits.course_service.persistence.mapper.CourseMapper;
+import de.unistuttgart.iste.gits.course_service.persistence.mapper.CourseMapperImpl;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.ChapterRepository;
 import de.unistuttgart.iste.gits.course_service.persistence.repository.CourseRepository;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.ProjectionQueryExecutor;
 import de.unistuttgart.iste.gits.course_service.persistence.validation.CourseValidator;
+import de.unistuttgart.iste.gits.course_service.persistence.validation.FilterNormalizer;
 import de.unistuttgart.iste.gits.generated.dto.*;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ValidationException;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
-import org.modelmapper.ModelMapper;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 
 import java.time.OffsetDateTime;
 import java.util.*;
@@ -29,13 +32,22 @@ import static org.mockito.Mockito.*;
 class CourseServiceTest {
 
     private final CourseRepository courseRepository = Mockito.mock(CourseRepository.class);
-    private final CourseMapper courseMapper = new CourseMapper(new ModelMapper());
+    private final ChapterRepository chapterRepository = Mockito.mock(ChapterRepository.class);
+    private final CourseMapper courseMapper = new CourseMapperImpl();
     private final CourseValidator courseValidator = Mockito.spy(CourseValidator.class);
-    private final TopicPublisher topicPublisher = Mockito.mock(TopicPublisher.class);
+    private final ChangeEventOutbox changeEventOutbox = Mockito.mock(ChangeEventOutbox.class);
 
     private final MembershipService membershipService = Mockito.mock(MembershipService.class);
 
-    private final CourseService courseService = new CourseService(courseRepository, membershipService, courseMapper, courseValidator, topicPublisher);
+    private final ProjectionQueryExecutor projectionQueryExecutor = Mockito.mock(ProjectionQueryExecutor.class);
+
+    private final KeysetPageLoader keysetPageLoader = Mockito.mock(KeysetPageLoader.class);
+
+    private final CourseCache courseCache = new CourseCache(new ConcurrentMapCacheManager(CourseCache.CACHE_NAME));
+
+    private final ChapterCourseIdCache chapterCourseIdCache =
+            new ChapterCourseIdCache(new ConcurrentMapCacheManager(ChapterCourseIdCache.CACHE_NAME));
+    private final CourseService courseService = new CourseService(courseRepository, chapterRepository, membershipService, courseMapper, courseValidator, changeEventOutbox, projectionQueryExecutor, keysetPageLoader, courseCache, chapterCourseIdCache, new FilterNormalizer(10, 100));
 
     /**
      * Given a valid CreateCourseInput
@@ -192,31 +204,29 @@ class CourseServiceTest {
     /**
      * Given a valid CourseId
      * When deleteCourse is called
-     * Then the CourseRepository is called and the id is returned
+     * Then memberships, chapters and the course are deleted without loading them and the id is returned
      */
     @Test
     void testDeleteCourseSuccessful() {
         // arrange
-        final CourseEntity entity = dummyCourseEntityBuilder().build();
+        final UUID courseId = UUID.randomUUID();
+        final List<UUID> chapterIds = List.of(UUID.randomUUID(), UUID.randomUUID());
 
-        // mock repository
-        when(courseRepository.findById(entity.getId())).thenReturn(Optional.of(entity));
-        entity.setChapters(List.of(dummyChapterBuilder(entity.getId()), dummyChapterBuilder(entity.getId())));
+        // mock repositories
+        when(chapterRepository.deleteAllOfCourseReturningIds(courseId)).thenReturn(chapterIds);
+        when(courseRepository.deleteCourseById(courseId)).thenReturn(1);
 
         // act
-        final UUID actualId = courseService.deleteCourse(entity.getId());
+        final UUID actualId = courseService.deleteCourse(courseId);
 
         // assert
-        assertThat(actualId, is(entity.getId()));
+        assertThat(actualId, is(courseId));
 
         // verify
-        verify(courseRepository).delete(entity);
-        verify(topicPublisher).notifyCourseChanges(entity.getId(), CrudOperation.DELETE);
-        verify(topicPublisher).notifyChapterChanges(entity.getChapters()
-                .stream()
-                .map(ChapterEntity::getId)
-                .toList(), CrudOperation.DELETE);
-
+        verify(membershipService).deleteMembershipByCourseId(courseId);
+        verify(courseRepository, never()).findById(any());
+        verify(changeEventOutbox).courseChanged(courseId, CrudOperation.DELETE);
+        verify(changeEventOutbox).chaptersChanged(chapterIds, CrudOperation.DELETE);
     }
 
     /**
@@ -230,7 +240,7 @@ class CourseServiceTest {
         final UUID id = UUID.randomUUID();
 
         // mock repository
-        doReturn(false).when(courseRepository).existsById(id);
+        doReturn(0).when(courseRepository).deleteCourseById(id);
 
         // act and assert
         assertThrows(EntityNotFoundException.class, () -> courseService.deleteCourse(id));
@@ -278,6 +288,93 @@ class CourseServiceTest {
         verify(courseRepository).findById(id);
     }
 
+    /**
+     * Given a course entity with a chapter collection
+     * When the course is mapped to a DTO
+     * Then the chapter collection is not accessed, so a lazy collection would not be initialized
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetCourseByIdDoesNotAccessChapters() {
+        // arrange
+        final List<ChapterEntity> chapters = mock(List.class);
+        final CourseEntity entity = dummyCourseEntityBuilder().chapters(chapters).build();
+
+        // mock repository
+        doReturn(Optional.of(entity)).when(courseRepository).findById(entity.getId());
+
+        // act
+        final Course course = courseService.getCourseById(entity.getId());
+
+        // assert
+        assertThat(course.getId(), is(entity.getId()));
+        verifyNoInteractions(chapters);
+    }
+
+    /**
+     * Given two courses
+     * When the courses are requested by their ids twice
+     * Then the courses are loaded from the repository only once
+     * and a course that is requested together with an uncached course is not loaded again
+     */
+    @Test
+    void testGetCoursesByIdsCached() {
+        // arrange
+        final CourseEntity course1 = dummyCourseEntityBuilder().build();
+        final CourseEntity course2 = dummyCourseEntityBuilder().build();
+
+        // mock repository
+        when(courseRepository.getAllByIdPreservingOrder(List.of(course1.getId())))
+                .thenReturn(List.of(course1));
+        when(courseRepository.getAllByIdPreservingOrder(List.of(course2.getId())))
+                .thenReturn(List.of(course2));
+
+        // act
+        courseService.getCoursesByIds(List.of(course1.getId()));
+        final List<Course> courses = courseService.getCoursesByIds(List.of(course2.getId(), course1.getId(), course2.getId()));
+        courseService.getCoursesByIds(List.of(course1.getId(), course2.getId()));
+
+        // assert
+        assertThat(courses.stream().map(Course::getId).toList(),
+                is(List.of(course2.getId(), course1.getId(), course2.getId())));
+
+        // verify
+        verify(courseRepository, times(1)).getAllByIdPreservingOrder(List.of(course1.getId()));
+        verify(courseRepository, times(1)).getAllByIdPreservingOrder(List.of(course2.getId()));
+        verifyNoMoreInteractions(courseRepository);
+    }
+
+    /**
+     * Given a cached course
+     * When the course is updated or deleted
+     * Then the course is loaded from the repository again on the next request
+     */
+    @Test
+    void testUpdateAndDeleteCourseEvictCache() {
+        // arrange
+        final CourseEntity entity = dummyCourseEntityBuilder().build();
+        final UpdateCourseInput input = dummyUpdateCourseInputBuilder().setId(entity.getId()).build();
+
+        // mock repository
+        when(courseRepository.findById(entity.getId())).thenReturn(Optional.of(entity));
+        when(courseRepository.save(any(CourseEntity.class))).thenReturn(entity);
+        when(courseRepository.deleteCourseById(entity.getId())).thenReturn(1);
+
+        // act & verify
+        courseService.getCourseById(entity.getId());
+        courseService.getCourseById(entity.getId());
+        verify(courseRepository, times(1)).findById(entity.getId());
+
+        courseService.updateCourse(input);
+        courseService.getCourseById(entity.getId());
+        // once for the existence check of the update and once for the lookup afterward
+        verify(courseRepository, times(3)).findById(entity.getId());
+
+        courseService.deleteCourse(entity.getId());
+        courseService.getCourseById(entity.getId());
+        verify(courseRepository, times(4)).findById(entity.getId());
+    }
+
     private CreateCourseInput.Builder dummyCreateCourseInputBuilder() {
         return CreateCourseInput.builder()
                 .setTitle("title")
@@ -302,18 +399,4 @@ class CourseServiceTest {
                 .setStartDate(OffsetDateTime.parse("2021-01-01T00:00:00Z"))
                 .setEndDate(OffsetDateTime.parse("2021-01-01T00:00:00Z"));
     }
-
-    private ChapterEntity dummyChapterBuilder(final UUID courseId) {
-        return ChapterEntity.builder()
-                .id(UUID.randomUUID())
-                .courseId(courseId)
-                .description("TestChapter")
-                .title("Test")
-                .number(1)
-                .startDate(OffsetDateTime.now())
-                .endDate(OffsetDateTime.now())
-                .suggestedStartDate(OffsetDateTime.now())
-                .suggestedEndDate(OffsetDateTime.now())
-                .build();
-    }
 }
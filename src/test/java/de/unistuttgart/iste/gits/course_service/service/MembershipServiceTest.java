@@ -1,25 +1,28 @@
 package de.unistuttgart.iste.gits.course_service.service;
 
-import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseEntity;
 import de.unistuttgart.iste.gits.course_service.persistence.entity.CourseMembershipEntity;
-import de.unistuttgart.iste.gits.course_service.persistence.mapper.CourseMapper;
 import de.unistuttgart.iste.gits.course_service.persistence.mapper.MembershipMapper;
+import de.unistuttgart.iste.gits.course_service.persistence.mapper.MembershipMapperImpl;
 import de.unistuttgart.iste.gits.course_service.persistence.repository.CourseMembershipRepository;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.CourseMembershipRepositoryCustom;
 import de.unistuttgart.iste.gits.course_service.persistence.repository.CourseRepository;
 import de.unistuttgart.iste.gits.generated.dto.*;
+import jakarta.validation.ValidationException;
 import org.junit.jupiter.api.Test;
-import org.modelmapper.ModelMapper;
 
 import java.time.OffsetDateTime;
 import java.util.*;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 class MembershipServiceTest {
 
@@ -27,16 +30,11 @@ class MembershipServiceTest {
 
     private final CourseRepository courseRepository = mock(CourseRepository.class);
 
-    private final ModelMapper modelMapper = new ModelMapper();
-
-    private final MembershipMapper membershipMapper = new MembershipMapper(modelMapper);
-
-    private final CourseMapper courseMapper = new CourseMapper(modelMapper);
+    private final MembershipMapper membershipMapper = new MembershipMapperImpl();
 
     private final MembershipService membershipService = new MembershipService(courseMembershipRepository,
             courseRepository,
-            membershipMapper,
-            courseMapper);
+            membershipMapper);
 
     @Test
     void getAllMembershipsByUserIdsTest() {
@@ -59,15 +57,8 @@ class MembershipServiceTest {
                     .setCourse(courses.get(i)).build());
         }
 
-        final List<CourseEntity> courseEntities = courses.stream()
-                .map(course -> modelMapper.map(course, CourseEntity.class))
-                .toList();
-
         //mock repository
         when(courseMembershipRepository.findByUserId(userId)).thenReturn(entities);
-        when(courseRepository.getReferenceById(courses.get(0).getId())).thenReturn(courseEntities.get(0));
-        when(courseRepository.getReferenceById(courses.get(1).getId())).thenReturn(courseEntities.get(1));
-        when(courseRepository.getReferenceById(courses.get(2).getId())).thenReturn(courseEntities.get(2));
 
         // run method under test
         final List<CourseMembership> resultSet = membershipService.getAllMembershipByUserId(userId, null);
@@ -83,62 +74,142 @@ class MembershipServiceTest {
     @Test
     void getMembershipsWithFilter() {
         // init data
-        final List<CourseMembershipEntity> entities = new ArrayList<>();
         final UUID userId = UUID.randomUUID();
-        final List<Course> courses = new ArrayList<>();
-
-        courses.add(Course.builder().setId(UUID.randomUUID()).setPublished(false).build());
-        courses.add(Course.builder().setId(UUID.randomUUID())
-                .setPublished(true)
-                .setStartDate(OffsetDateTime.now().minusDays(3))
-                .setEndDate(OffsetDateTime.now().minusDays(1))
-                .build());
-        courses.add(Course.builder().setId(UUID.randomUUID())
-                .setPublished(true)
-                .setStartDate(OffsetDateTime.now().plusDays(1))
-                .setEndDate(OffsetDateTime.now().plusDays(3))
-                .build());
-
-        final Course onlyAvailableCourse = Course.builder()
-                .setId(UUID.randomUUID())
-                .setPublished(true)
-                .setStartDate(OffsetDateTime.now().minusDays(3))
-                .setEndDate(OffsetDateTime.now().plusDays(3))
-                .build();
-        courses.add(onlyAvailableCourse);
+        final List<CourseMembershipEntity> entities = new ArrayList<>();
 
         for (int i = 0; i < 4; i++) {
             entities.add(CourseMembershipEntity.builder()
                     .userId(userId)
-                    .courseId(courses.get(i).getId())
+                    .courseId(UUID.randomUUID())
                     .role(UserRoleInCourse.STUDENT).build());
         }
-        final List<CourseEntity> courseEntities = courses.stream()
-                .map(course -> modelMapper.map(course, CourseEntity.class))
-                .toList();
 
-        // mock repository and mapper
-        when(courseMembershipRepository.findByUserId(userId)).thenReturn(entities);
-        when(courseRepository.getReferenceById(courses.get(0).getId())).thenReturn(courseEntities.get(0));
-        when(courseRepository.getReferenceById(courses.get(1).getId())).thenReturn(courseEntities.get(1));
-        when(courseRepository.getReferenceById(courses.get(2).getId())).thenReturn(courseEntities.get(2));
-        when(courseRepository.getReferenceById(courses.get(3).getId())).thenReturn(courseEntities.get(3));
+        // mock repository, the availability is evaluated by the database
+        when(courseMembershipRepository.findAvailableByUserId(eq(userId), any(OffsetDateTime.class)))
+                .thenReturn(entities.subList(3, 4));
+        when(courseMembershipRepository.findUnavailableByUserId(eq(userId), any(OffsetDateTime.class)))
+                .thenReturn(entities.subList(0, 3));
 
         // run method under test
         List<CourseMembership> resultSet = membershipService.getAllMembershipByUserId(userId, true);
 
         // compare results
         assertThat(resultSet, hasSize(1));
-        assertThat(resultSet.get(0).getCourseId(), is(onlyAvailableCourse.getId()));
+        assertThat(resultSet.get(0).getCourseId(), is(entities.get(3).getCourseId()));
 
         // run method under test but with false as parameter
         resultSet = membershipService.getAllMembershipByUserId(userId, false);
 
         // compare results
         assertThat(resultSet, hasSize(3));
-        assertThat(resultSet.get(0).getCourseId(), is(courses.get(0).getId()));
-        assertThat(resultSet.get(1).getCourseId(), is(courses.get(1).getId()));
-        assertThat(resultSet.get(2).getCourseId(), is(courses.get(2).getId()));
+        assertThat(resultSet.get(0).getCourseId(), is(entities.get(0).getCourseId()));
+        assertThat(resultSet.get(1).getCourseId(), is(entities.get(1).getCourseId()));
+        assertThat(resultSet.get(2).getCourseId(), is(entities.get(2).getCourseId()));
+
+        // verify that no course was loaded to evaluate the availability
+        verifyNoInteractions(courseRepository);
     }
 
-}
\ No newline at end of file
+
+    /**
+     * Given the memberships fields of two courses with identical arguments
+     * When getMembershipsOfCourses is called
+     * Then the memberships of both courses are loaded with a single query and grouped by course
+     */
+    @Test
+    void getMembershipsOfCoursesTest() {
+        final UUID courseId1 = UUID.randomUUID();
+        final UUID courseId2 = UUID.randomUUID();
+        final MembershipService.MembershipQueryArguments arguments =
+                new MembershipService.MembershipQueryArguments(UserRoleInCourse.TUTOR, null);
+        final MembershipService.CourseMembershipsKey key1 = new MembershipService.CourseMembershipsKey(courseId1, arguments);
+        final MembershipService.CourseMembershipsKey key2 = new MembershipService.CourseMembershipsKey(courseId2, arguments);
+
+        final CourseMembershipEntity tutor = CourseMembershipEntity.builder()
+                .userId(UUID.randomUUID())
+                .courseId(courseId1)
+                .role(UserRoleInCourse.TUTOR)
+                .build();
+
+        when(courseMembershipRepository.findByCourseIdInAndRoleOrderByCourseIdAscUserIdAsc(any(), eq(UserRoleInCourse.TUTOR)))
+                .thenReturn(List.of(tutor));
+
+        final Map<MembershipService.CourseMembershipsKey, List<CourseMembership>> result =
+                membershipService.getMembershipsOfCourses(List.of(key1, key2));
+
+        assertThat(result.get(key1), hasSize(1));
+        assertThat(result.get(key1).get(0).getUserId(), is(tutor.getUserId()));
+        assertThat(result.get(key2), hasSize(0));
+
+        verify(courseMembershipRepository, times(1))
+                .findByCourseIdInAndRoleOrderByCourseIdAscUserIdAsc(any(), any());
+        verify(courseMembershipRepository, never()).findByCourseIdInOrderByCourseIdAscUserIdAsc(any());
+    }
+
+    @Test
+    void importMembershipsTest() {
+        // init data
+        final UUID courseId = UUID.randomUUID();
+        final List<MembershipImportInput> inputs = new ArrayList<>();
+        for (int i = 0; i < MembershipService.IMPORT_BATCH_SIZE + 1; i++) {
+            inputs.add(new MembershipImportInput(UUID.randomUUID(), UserRoleInCourse.STUDENT));
+        }
+        // duplicate of the first row
+        inputs.add(new MembershipImportInput(inputs.get(0).getUserId(), UserRoleInCourse.TUTOR));
+
+        final List<Integer> batchSizes = new ArrayList<>();
+
+        // mock repositories
+        when(courseRepository.existsById(courseId)).thenReturn(true);
+        when(courseMembershipRepository.upsertMemberships(eq(courseId), any(), any())).thenAnswer(invocation -> {
+            final List<UUID> userIds = invocation.getArgument(1);
+            batchSizes.add(userIds.size());
+            return new CourseMembershipRepositoryCustom.UpsertResult(userIds.size() - 1, 1);
+        });
+
+        // run method under test
+        final MembershipImportResult result = membershipService.importMemberships(courseId, inputs);
+
+        // check that the rows are written in two batches and the duplicate is reported
+        assertThat(batchSizes, is(List.of(MembershipService.IMPORT_BATCH_SIZE, 1)));
+        assertThat(result.getCreated(), is(MembershipService.IMPORT_BATCH_SIZE - 1));
+        assertThat(result.getUpdated(), is(2));
+        assertThat(result.getUnchanged(), is(0));
+        assertThat(result.getErrors(), hasSize(1));
+        assertThat(result.getErrors().get(0).getIndex(), is(MembershipService.IMPORT_BATCH_SIZE + 1));
+    }
+
+    @Test
+    void importMembershipsWithoutRoleTest() {
+        // init data
+        final UUID courseId = UUID.randomUUID();
+        final List<MembershipImportInput> inputs = List.of(
+                new MembershipImportInput(UUID.randomUUID(), UserRoleInCourse.STUDENT),
+                new MembershipImportInput(UUID.randomUUID(), null));
+
+        // mock repositories
+        when(courseRepository.existsById(courseId)).thenReturn(true);
+
+        // run method under test
+        final ValidationException exception = assertThrows(ValidationException.class,
+                () -> membershipService.importMemberships(courseId, inputs));
+
+        // check that the row is reported and nothing is written
+        assertThat(exception.getMessage(), containsString("index 1"));
+        verify(courseMembershipRepository, never()).upsertMemberships(any(), any(), any());
+    }
+
+    @Test
+    void importMembershipsTooManyTest() {
+        // init data
+        final UUID courseId = UUID.randomUUID();
+        final List<MembershipImportInput> inputs = Collections.nCopies(MembershipService.MAX_IMPORT_SIZE + 1,
+                new MembershipImportInput(UUID.randomUUID(), UserRoleInCourse.STUDENT));
+
+        // run method under test
+        assertThrows(ValidationException.class, () -> membershipService.importMemberships(courseId, inputs));
+
+        // check that nothing is written
+        verify(courseMembershipRepository, never()).upsertMemberships(any(), any(), any());
+    }
+}
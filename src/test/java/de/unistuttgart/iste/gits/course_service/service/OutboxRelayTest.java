@@ -0,0 +1,177 @@
+package de.unistuttgart.iste.gits.course_service.service;
+
+import de.unistuttgart.iste.gits.common.dapr.TopicPublisher;
+import de.unistuttgart.iste.gits.common.event.CrudOperation;
+import de.unistuttgart.iste.gits.course_service.config.SynchronousTopicPublisher;
+import de.unistuttgart.iste.gits.course_service.persistence.entity.OutboxEventEntity;
+import de.unistuttgart.iste.gits.course_service.persistence.repository.OutboxEventRepository;
+import io.dapr.client.DaprClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for {@link OutboxRelay}.
+ */
+class OutboxRelayTest {
+
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+    private final TopicPublisher topicPublisher = mock(TopicPublisher.class);
+
+    private final OutboxRelay outboxRelay = new OutboxRelay(outboxEventRepository,
+            topicPublisher,
+            mock(PlatformTransactionManager.class),
+            new SimpleMeterRegistry(),
+            10,
+            Duration.ofSeconds(2),
+            Duration.ofSeconds(1),
+            Duration.ofSeconds(3));
+
+    /**
+     * Given chapter and course change events in the outbox, including a duplicate chapter event
+     * When a batch is relayed
+     * Then all chapter events with the same operation are published as one message without duplicates,
+     * the course event is published on its own and all events are deleted
+     */
+    @Test
+    void testRelayBatchCoalescesEvents() {
+        // arrange
+        final OffsetDateTime now = OffsetDateTime.now();
+        final OutboxEventEntity chapter1 = event(1, OutboxEventEntity.Type.CHAPTER_CHANGE, CrudOperation.DELETE, now);
+        final OutboxEventEntity chapter2 = event(2, OutboxEventEntity.Type.CHAPTER_CHANGE, CrudOperation.DELETE, now);
+        final OutboxEventEntity course = event(3, OutboxEventEntity.Type.COURSE_CHANGE, CrudOperation.DELETE, now);
+        final OutboxEventEntity chapter3 = event(4, OutboxEventEntity.Type.CHAPTER_CHANGE, CrudOperation.DELETE, now);
+        final OutboxEventEntity duplicate = event(5, OutboxEventEntity.Type.CHAPTER_CHANGE, CrudOperation.DELETE, now);
+        duplicate.setEntityId(chapter1.getEntityId());
+
+        // mock repository
+        when(outboxEventRepository.findDueForUpdate(now, now, 10))
+                .thenReturn(List.of(chapter1, chapter2, course, chapter3, duplicate));
+
+        // act
+        final int loaded = outboxRelay.relayBatch(now, Duration.ZERO);
+
+        // assert
+        assertThat(loaded, is(5));
+
+        // verify
+        verify(topicPublisher).notifyChapterChanges(
+                List.of(chapter1.getEntityId(), chapter2.getEntityId(), chapter3.getEntityId()),
+                CrudOperation.DELETE);
+        verify(topicPublisher).notifyCourseChanges(course.getEntityId(), CrudOperation.DELETE);
+        verifyNoMoreInteractions(topicPublisher);
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L, 4L, 5L, 3L));
+    }
+
+    /**
+     * When a batch is relayed with a coalescing window
+     * Then only events created before the window are loaded, the due time of retries is not shifted
+     */
+    @Test
+    void testRelayBatchWaitsForCoalescingWindow() {
+        // arrange
+        final OffsetDateTime now = OffsetDateTime.now();
+
+        // act
+        outboxRelay.relayBatch(now, Duration.ofSeconds(2));
+
+        // verify
+        verify(outboxEventRepository).findDueForUpdate(now, now.minusSeconds(2), 10);
+        verifyNoInteractions(topicPublisher);
+    }
+
+    /**
+     * Given a course change event in the outbox that cannot be published
+     * When a batch is relayed repeatedly
+     * Then the event is kept and its next attempt is delayed with an exponential backoff up to the maximum
+     */
+    @Test
+    void testRelayBatchRetriesWithBackoff() {
+        // arrange
+        final OffsetDateTime now = OffsetDateTime.now();
+        final OutboxEventEntity course = event(1, OutboxEventEntity.Type.COURSE_CHANGE, CrudOperation.UPDATE, now);
+
+        // mock repository and publisher
+        when(outboxEventRepository.findDueForUpdate(now, now, 10)).thenReturn(List.of(course));
+        doThrow(new RuntimeException("sidecar unavailable"))
+                .when(topicPublisher).notifyCourseChanges(course.getEntityId(), CrudOperation.UPDATE);
+
+        // act & assert
+        outboxRelay.relayBatch(now, Duration.ZERO);
+        assertThat(course.getAttempts(), is(1));
+        assertThat(course.getNextAttemptAt(), is(now.plusSeconds(1)));
+
+        outboxRelay.relayBatch(now, Duration.ZERO);
+        assertThat(course.getNextAttemptAt(), is(now.plusSeconds(2)));
+
+        outboxRelay.relayBatch(now, Duration.ZERO);
+        assertThat(course.getAttempts(), is(3));
+        assertThat(course.getNextAttemptAt(), is(now.plusSeconds(3)));
+
+        // verify
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    /**
+     * Given a chapter change event in the outbox and a dapr sidecar that rejects the event
+     * When a batch is relayed with the synchronous topic publisher
+     * Then the failure is reported to the relay, so the event is kept and retried
+     */
+    @Test
+    void testRelayBatchRetriesWhenSidecarRejectsEvent() {
+        // arrange
+        final OffsetDateTime now = OffsetDateTime.now();
+        final OutboxEventEntity chapter = event(1, OutboxEventEntity.Type.CHAPTER_CHANGE, CrudOperation.CREATE, now);
+        final DaprClient daprClient = mock(DaprClient.class);
+        final OutboxRelay relay = new OutboxRelay(outboxEventRepository,
+                new SynchronousTopicPublisher(daprClient),
+                mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(),
+                10,
+                Duration.ofSeconds(2),
+                Duration.ofSeconds(1),
+                Duration.ofSeconds(3));
+
+        // mock repository and dapr client
+        when(outboxEventRepository.findDueForUpdate(now, now, 10)).thenReturn(List.of(chapter));
+        when(daprClient.publishEvent(anyString(), anyString(), any()))
+                .thenReturn(Mono.error(new RuntimeException("sidecar unavailable")));
+
+        // act
+        relay.relayBatch(now, Duration.ZERO);
+
+        // assert
+        assertThat(chapter.getAttempts(), is(1));
+        assertThat(chapter.getNextAttemptAt(), is(now.plusSeconds(1)));
+
+        // verify
+        verify(daprClient).publishEvent(eq("gits"), eq("chapter-changes"), any());
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    private static OutboxEventEntity event(final long id,
+                                           final OutboxEventEntity.Type type,
+                                           final CrudOperation operation,
+                                           final OffsetDateTime now) {
+        return OutboxEventEntity.builder()
+                .id(id)
+                .type(type)
+                .entityId(UUID.randomUUID())
+                .operation(operation)
+                .createdAt(now)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .build();
+    }
+}